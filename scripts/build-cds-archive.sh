@@ -0,0 +1,44 @@
+#!/usr/bin/env bash
+# Строит архив AppCDS для CarServiceApplication.
+#
+# Использование: scripts/build-cds-archive.sh <путь к bootJar> [каталог]
+#
+# Spring Boot 3.2 распаковывает jar только по слоям (java -Djarmode=layertools),
+# а CDS архивирует классы, загруженные из jar-файлов обычного classpath.
+# Поэтому зависимости из слоев копируются в lib/, классы приложения
+# упаковываются в application.jar, а приложение запускается без JarLauncher
+# с явным classpath, который сохраняется в файл classpath: при запуске
+# с архивом classpath должен совпадать с обучающим.
+# Обучающий запуск выполняется с профилем fast-start: контекст поднимается
+# до refresh и приложение завершается, а JVM сохраняет загруженные классы
+# в application.jsa. Для обучающего запуска нужна доступная база данных,
+# так как при старте выполняются миграции Flyway.
+set -euo pipefail
+
+JAR=${1:?usage: $0 <boot jar> [output dir]}
+OUT=${2:-build/cds}
+MAIN_CLASS=org.example.carservice.CarServiceApplication
+
+rm -rf "$OUT"
+mkdir -p "$OUT/lib"
+java -Djarmode=layertools -jar "$JAR" extract --destination "$OUT/layers"
+
+for layer in dependencies snapshot-dependencies; do
+    if [ -d "$OUT/layers/$layer/BOOT-INF/lib" ]; then
+        cp "$OUT/layers/$layer"/BOOT-INF/lib/*.jar "$OUT/lib/"
+    fi
+done
+jar --create --file "$OUT/application.jar" -C "$OUT/layers/application/BOOT-INF/classes" .
+rm -rf "$OUT/layers"
+
+CLASSPATH="$OUT/application.jar:$(find "$OUT/lib" -name '*.jar' | sort | paste -sd: -)"
+echo "$CLASSPATH" > "$OUT/classpath"
+
+java -XX:ArchiveClassesAtExit="$OUT/application.jsa" \
+     -Dspring.context.exit=onRefresh \
+     -Dspring.profiles.active=fast-start \
+     -cp "$CLASSPATH" "$MAIN_CLASS"
+
+echo "CDS archive: $OUT/application.jsa"
+echo "Run: java -XX:SharedArchiveFile=$OUT/application.jsa -Dspring.profiles.active=fast-start" \
+     "-cp \"\$(cat $OUT/classpath)\" $MAIN_CLASS"
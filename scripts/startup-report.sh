@@ -0,0 +1,81 @@
+#!/usr/bin/env bash
+# Отчет о времени старта: время от запуска JVM до первого успешного
+# ответа GET /api/car-types в режимах default, fast-start и fast-start + AppCDS.
+#
+# Использование: scripts/startup-report.sh <путь к bootJar> [запусков на режим] [файл отчета]
+#
+# Режим с AppCDS измеряется, если архив построен scripts/build-cds-archive.sh
+# в build/cds. Нужна запущенная база данных; порт берется из server.port (8080).
+# Таблица печатается и записывается в файл отчета (по умолчанию
+# docs/startup-report.md) вместе с версией JVM и коммитом.
+set -euo pipefail
+
+JAR=${1:?usage: $0 <boot jar> [runs] [report file]}
+RUNS=${2:-5}
+REPORT=${3:-docs/startup-report.md}
+URL=${STARTUP_URL:-http://localhost:8080/api/car-types}
+CDS_DIR=build/cds
+MAIN_CLASS=org.example.carservice.CarServiceApplication
+
+# Запускает приложение с указанными аргументами JVM и печатает миллисекунды
+# до первого ответа 200 на GET /api/car-types.
+measure() {
+    local start end pid
+    start=$(date +%s%N)
+    java "$@" > /dev/null 2>&1 &
+    pid=$!
+    until curl -sf -o /dev/null "$URL"; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "application exited before answering $URL" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+    end=$(date +%s%N)
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+    echo $(( (end - start) / 1000000 ))
+}
+
+# Печатает строку отчета: режим, все замеры и медиана.
+report() {
+    local mode=$1
+    shift
+    local times=()
+    for _ in $(seq "$RUNS"); do
+        times+=("$(measure "$@")")
+    done
+    local median
+    median=$(printf '%s\n' "${times[@]}" | sort -n | awk '{ a[NR] = $1 } END { print a[int((NR + 1) / 2)] }')
+    printf '| %-20s | %8s | %s |\n' "$mode" "$median" "${times[*]}"
+}
+
+table() {
+    printf '| %-20s | %8s | %s |\n' "mode" "median ms" "runs, ms"
+    printf '|----------------------|----------|------|\n'
+    report "default" -jar "$JAR"
+    report "fast-start" -Dspring.profiles.active=fast-start -jar "$JAR"
+    if [ -f "$CDS_DIR/application.jsa" ]; then
+        report "fast-start + AppCDS" -XX:SharedArchiveFile="$CDS_DIR/application.jsa" \
+            -Dspring.profiles.active=fast-start -cp "$(cat "$CDS_DIR/classpath")" "$MAIN_CLASS"
+    fi
+}
+
+RESULTS=$(table)
+echo "$RESULTS"
+
+mkdir -p "$(dirname "$REPORT")"
+{
+    echo "# Время старта CarServiceApplication"
+    echo
+    echo "Время от запуска JVM до первого ответа 200 на GET /api/car-types, $RUNS запусков на режим."
+    echo "Получено scripts/startup-report.sh."
+    echo
+    echo "- Дата: $(date -u '+%Y-%m-%d %H:%M UTC')"
+    echo "- Коммит: $(git rev-parse --short HEAD 2> /dev/null || echo unknown)"
+    echo "- JVM: $(java -version 2>&1 | head -n 1)"
+    echo "- Процессоров: $(nproc 2> /dev/null || echo unknown)"
+    echo
+    echo "$RESULTS"
+} > "$REPORT"
+echo "Report: $REPORT"
@@ -0,0 +1,135 @@
+package org.example.carservice.benchmark;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.carservice.repository.CarAssignmentRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность назначения водителей при множестве одновременных
+ * диспетчеров. Сравнивает условный UPDATE из CarAssignmentRepository
+ * с сериализованным чтением-изменением-записью (блокировка водителя и
+ * автомобиля, подсчет его автомобилей, UPDATE), который потребовался бы
+ * для того же ограничения загрузки при подходе select-then-save.
+ *
+ * Нужна запущенная PostgreSQL со схемой сервиса: адрес берется из
+ * системных свойств bench.jdbc.url, bench.jdbc.user, bench.jdbc.password.
+ * Бенчмарк создает своих водителей и автомобили и удаляет их по окончании.
+ * Количество потоков по умолчанию 32, меняется параметром -t.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(32)
+@Fork(1)
+public class AssignmentContentionBenchmark {
+
+    @Param({"10", "200"})
+    private int drivers;
+
+    private static final int CARS = 5000;
+    private static final int MAX_CARS_PER_DRIVER = 20;
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private CarAssignmentRepository assignmentRepo;
+
+    private final List<Long> driverIds = new ArrayList<>();
+    private final List<Long> carIds = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5433/car_system"));
+        config.setUsername(System.getProperty("bench.jdbc.user", "postgres"));
+        config.setPassword(System.getProperty("bench.jdbc.password", "postgres"));
+        config.setMaximumPoolSize(32);
+        dataSource = new HikariDataSource(config);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        assignmentRepo = new CarAssignmentRepository(jdbcTemplate);
+
+        for (int i = 0; i < drivers; i++) {
+            driverIds.add(jdbcTemplate.queryForObject(
+                    "INSERT INTO drivers (id, version, name, age) VALUES (nextval('drivers_seq'), 0, ?, 30) " +
+                    "RETURNING id", Long.class, "Benchmark driver " + i));
+        }
+        for (int i = 0; i < CARS; i++) {
+            carIds.add(jdbcTemplate.queryForObject(
+                    "INSERT INTO cars (id, version, brand, model, year) VALUES (nextval('cars_seq'), 0, ?, ?, 2020) " +
+                    "RETURNING id", Long.class, "Benchmark", "Model " + i));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        Long[] cars = carIds.toArray(new Long[0]);
+        Long[] benchDrivers = driverIds.toArray(new Long[0]);
+        jdbcTemplate.update("DELETE FROM cars WHERE id = ANY(?)", (Object) cars);
+        jdbcTemplate.update("DELETE FROM car_tombstones WHERE car_id = ANY(?)", (Object) cars);
+        jdbcTemplate.update("DELETE FROM drivers WHERE id = ANY(?)", (Object) benchDrivers);
+        jdbcTemplate.update("DELETE FROM fleet_counters WHERE dimension = 'driver' AND bucket = ANY(?)",
+                (Object) benchDrivers);
+        dataSource.close();
+    }
+
+    @Benchmark
+    public boolean conditionalUpdate() {
+        Long carId = randomCar();
+        Long driverId = randomDriver();
+        return transactionTemplate.execute(status ->
+                assignmentRepo.assignDriver(carId, driverId, MAX_CARS_PER_DRIVER).isPresent());
+    }
+
+    @Benchmark
+    public boolean serializedReadModifyWrite() {
+        Long carId = randomCar();
+        Long driverId = randomDriver();
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.queryForObject("SELECT id FROM drivers WHERE id = ? FOR UPDATE", Long.class, driverId);
+            Long currentDriverId = jdbcTemplate.queryForObject(
+                    "SELECT driver_id FROM cars WHERE id = ? FOR UPDATE", Long.class, carId);
+            if (!driverId.equals(currentDriverId)) {
+                Long count = jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM cars WHERE driver_id = ?", Long.class, driverId);
+                if (count >= MAX_CARS_PER_DRIVER) {
+                    return false;
+                }
+            }
+            jdbcTemplate.update("UPDATE cars SET driver_id = ?, version = version + 1 WHERE id = ?",
+                    driverId, carId);
+            return true;
+        });
+    }
+
+    private Long randomCar() {
+        return carIds.get(ThreadLocalRandom.current().nextInt(carIds.size()));
+    }
+
+    private Long randomDriver() {
+        return driverIds.get(ThreadLocalRandom.current().nextInt(driverIds.size()));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(AssignmentContentionBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,105 @@
+package org.example.carservice.benchmark;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Скорость вставки автомобилей в строках в секунду: построчные INSERT
+ * с идентификатором из последовательности на каждую строку (как при
+ * IDENTITY) против пакетов JDBC по 50 строк с идентификаторами, выданными
+ * заранее блоком из cars_seq (как у POST /api/cars/batch).
+ *
+ * Нужна запущенная PostgreSQL со схемой сервиса: адрес берется из
+ * системных свойств bench.jdbc.url, bench.jdbc.user, bench.jdbc.password;
+ * reWriteBatchedInserts включается бенчмарком. Вставленные автомобили
+ * удаляются по окончании.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@OperationsPerInvocation(BatchInsertBenchmark.ROWS)
+@Fork(1)
+public class BatchInsertBenchmark {
+
+    static final int ROWS = 1000;
+    private static final int BATCH_SIZE = 50;
+    private static final String BRAND = "Insert benchmark";
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private long firstId;
+
+    @Setup
+    public void setUp() {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5433/car_system"));
+        config.setUsername(System.getProperty("bench.jdbc.user", "postgres"));
+        config.setPassword(System.getProperty("bench.jdbc.password", "postgres"));
+        config.addDataSourceProperty("reWriteBatchedInserts", "true");
+        config.setMaximumPoolSize(2);
+        dataSource = new HikariDataSource(config);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        firstId = jdbcTemplate.queryForObject("SELECT nextval('cars_seq')", Long.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM cars WHERE brand = ? AND id >= ?", BRAND, firstId);
+        jdbcTemplate.update("DELETE FROM car_tombstones WHERE car_id >= ?", firstId);
+        dataSource.close();
+    }
+
+    @Benchmark
+    public int singleRowInserts() {
+        return transactionTemplate.execute(status -> {
+            int inserted = 0;
+            for (int i = 0; i < ROWS; i++) {
+                inserted += jdbcTemplate.update(
+                        "INSERT INTO cars (id, version, brand, model, year) " +
+                        "VALUES (nextval('cars_seq'), 0, ?, ?, 2020)", BRAND, "Model " + i);
+            }
+            return inserted;
+        });
+    }
+
+    @Benchmark
+    public int batchedInserts() {
+        return transactionTemplate.execute(status -> {
+            for (int from = 0; from < ROWS; from += BATCH_SIZE) {
+                List<Long> ids = jdbcTemplate.queryForList(
+                        "SELECT nextval('cars_seq') FROM generate_series(1, ?)", Long.class, BATCH_SIZE);
+                List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+                for (int i = 0; i < BATCH_SIZE; i++) {
+                    rows.add(new Object[]{ids.get(i), BRAND, "Model " + (from + i)});
+                }
+                jdbcTemplate.batchUpdate(
+                        "INSERT INTO cars (id, version, brand, model, year) VALUES (?, 0, ?, ?, 2020)", rows);
+            }
+            return ROWS;
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(BatchInsertBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
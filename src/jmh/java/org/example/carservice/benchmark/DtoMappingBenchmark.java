@@ -0,0 +1,121 @@
+package org.example.carservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.carservice.dto.CarDto;
+import org.example.carservice.dto.CarTypeDto;
+import org.example.carservice.dto.DriverDto;
+import org.example.carservice.dto.DtoMapper;
+import org.example.carservice.entity.Car;
+import org.example.carservice.entity.CarType;
+import org.example.carservice.entity.Driver;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Микробенчмарки преобразования сущностей в DTO и сериализации списков в JSON.
+ * Покрывают те же пути, что и обработчики MainController, на списках
+ * размером 1, 1 000 и 100 000 элементов.
+ * Запуск с профилировщиком gc (нормированные аллокации на операцию):
+ * main этого класса или ./gradlew jmh с профилировщиком gc.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DtoMappingBenchmark {
+
+    @Param({"1", "1000", "100000"})
+    private int size;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private List<Car> cars;
+    private List<Driver> drivers;
+    private List<CarType> carTypes;
+    private List<CarDto> carDtos;
+
+    @Setup
+    public void setUp() {
+        carTypes = new ArrayList<>();
+        for (long i = 1; i <= 10; i++) {
+            CarType carType = new CarType("Type " + i, "Description of type " + i);
+            carType.setId(i);
+            carTypes.add(carType);
+        }
+
+        drivers = new ArrayList<>(size);
+        cars = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            Driver driver = new Driver("Driver " + i, 20 + i % 40);
+            driver.setId((long) i);
+            drivers.add(driver);
+
+            Car car = new Car("Brand " + i % 50, "Model " + i % 500, 2000 + i % 25, carTypes.get(i % carTypes.size()));
+            car.setId((long) i);
+            if (i % 3 != 0) {
+                car.setDriver(driver);
+            }
+            cars.add(car);
+        }
+
+        carDtos = mapCars();
+    }
+
+    @Benchmark
+    public List<CarDto> mapCars() {
+        return cars.stream()
+                .map(DtoMapper::toCarDto)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<DriverDto> mapDrivers() {
+        return drivers.stream()
+                .map(DtoMapper::toDriverDto)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<CarTypeDto> mapCarTypes() {
+        return carTypes.stream()
+                .map(DtoMapper::toCarTypeDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Сериализация в поток без накопления результата, как при записи в ответ.
+     */
+    @Benchmark
+    public void serializeCarDtos() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), carDtos);
+    }
+
+    /**
+     * Полный путь GET /api/cars для сущностей: преобразование и сериализация.
+     */
+    @Benchmark
+    public void mapAndSerializeCars() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), mapCars());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(DtoMappingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.carservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.example.carservice.dto.CarDto;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение форматов ответа для списков CarDto: JSON, CBOR и Smile.
+ * Измеряет время сериализации и разбора, размер полезной нагрузки
+ * в байтах печатается при подготовке каждого размера списка.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadFormatBenchmark {
+
+    @Param({"1", "1000", "100000"})
+    private int size;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    private ObjectMapper mapper;
+    private List<CarDto> cars;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = switch (format) {
+            case "cbor" -> new CBORMapper();
+            case "smile" -> new SmileMapper();
+            default -> new ObjectMapper();
+        };
+
+        cars = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            cars.add(new CarDto((long) i, "Brand " + i % 50, "Model " + i % 500, 2000 + i % 25,
+                    i % 3 != 0 ? (long) i : null, i % 3 != 0 ? "Driver " + i : null,
+                    (long) (i % 10), "Type " + i % 10));
+        }
+        payload = mapper.writeValueAsBytes(cars);
+        System.out.printf("%n%s, %d cars: %d bytes%n", format, size, payload.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return mapper.writeValueAsBytes(cars);
+    }
+
+    @Benchmark
+    public CarDto[] deserialize() throws IOException {
+        return mapper.readValue(payload, CarDto[].class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PayloadFormatBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,135 @@
+package org.example.carservice.benchmark;
+
+import org.example.carservice.CarServiceApplication;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение блокирующего чтения через JPA (MainController) и реактивного
+ * чтения через R2DBC (ReactiveReadController) на одном и том же сервисе:
+ * автомобиль по идентификатору и список автомобилей водителя.
+ *
+ * Бенчмарк запускает сервис на случайном порту с carservice.reactive.enabled=true,
+ * создает водителей с автомобилями и удаляет их по окончании. Результат -
+ * ответы в миллисекунду и среднее время ответа при 200 клиентских потоках.
+ *
+ * Нужна запущенная PostgreSQL из application.properties.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Threads(200)
+@Fork(1)
+public class ReactiveReadBenchmark {
+
+    private static final int DRIVERS = 100;
+    private static final int CARS_PER_DRIVER = 20;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private HttpClient httpClient;
+    private String baseUrl;
+
+    private final List<Long> driverIds = new ArrayList<>();
+    private final List<Long> carIds = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        context = SpringApplication.run(CarServiceApplication.class,
+                "--server.port=0",
+                "--carservice.reactive.enabled=true");
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api";
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        for (int i = 0; i < DRIVERS; i++) {
+            Long driverId = jdbcTemplate.queryForObject(
+                    "INSERT INTO drivers (id, version, name, age) VALUES (nextval('drivers_seq'), 0, ?, 30) " +
+                    "RETURNING id", Long.class, "Reactive driver " + i);
+            driverIds.add(driverId);
+            for (int j = 0; j < CARS_PER_DRIVER; j++) {
+                carIds.add(jdbcTemplate.queryForObject(
+                        "INSERT INTO cars (id, version, brand, model, year, driver_id) " +
+                        "VALUES (nextval('cars_seq'), 0, ?, ?, 2020, ?) RETURNING id",
+                        Long.class, "Reactive", "Model " + j, driverId));
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        Long[] cars = carIds.toArray(new Long[0]);
+        Long[] benchDrivers = driverIds.toArray(new Long[0]);
+        jdbcTemplate.update("DELETE FROM cars WHERE id = ANY(?)", (Object) cars);
+        jdbcTemplate.update("DELETE FROM car_tombstones WHERE car_id = ANY(?)", (Object) cars);
+        jdbcTemplate.update("DELETE FROM drivers WHERE id = ANY(?)", (Object) benchDrivers);
+        jdbcTemplate.update("DELETE FROM fleet_counters WHERE dimension = 'driver' AND bucket = ANY(?)",
+                (Object) benchDrivers);
+        context.close();
+    }
+
+    @Benchmark
+    public int blockingCar() throws IOException, InterruptedException {
+        return get("/cars/" + randomCar());
+    }
+
+    @Benchmark
+    public int reactiveCar() throws IOException, InterruptedException {
+        return get("/reactive/cars/" + randomCar());
+    }
+
+    @Benchmark
+    public int blockingDriverCars() throws IOException, InterruptedException {
+        return get("/drivers/" + randomDriver() + "/cars");
+    }
+
+    @Benchmark
+    public int reactiveDriverCars() throws IOException, InterruptedException {
+        return get("/reactive/drivers/" + randomDriver() + "/cars");
+    }
+
+    private int get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Accept", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private Long randomCar() {
+        return carIds.get(ThreadLocalRandom.current().nextInt(carIds.size()));
+    }
+
+    private Long randomDriver() {
+        return driverIds.get(ThreadLocalRandom.current().nextInt(driverIds.size()));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ReactiveReadBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
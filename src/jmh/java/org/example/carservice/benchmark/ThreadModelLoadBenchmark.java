@@ -0,0 +1,128 @@
+package org.example.carservice.benchmark;
+
+import org.example.carservice.CarServiceApplication;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Нагрузочное сравнение обработки запросов на потоках платформы (пул Tomcat)
+ * и на виртуальных потоках (spring.threads.virtual.enabled) на двух путях:
+ * чтение GET /api/cars/{id} и назначение POST /api/cars/{carId}/driver/{driverId}.
+ *
+ * Бенчмарк сам запускает сервис на случайном порту для каждого значения
+ * virtualThreads, создает водителей и автомобили и удаляет их по окончании.
+ * Клиентских потоков больше, чем потоков Tomcat по умолчанию (200), чтобы
+ * режим платформенных потоков упирался в пул. Результат - ответы в секунду
+ * и среднее время ответа; ответы 503 от DbAdmissionDataSource тоже считаются
+ * операциями, поэтому при сравнении стоит смотреть и журнал сервиса.
+ *
+ * Нужна запущенная PostgreSQL из application.properties.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Threads(400)
+@Fork(1)
+public class ThreadModelLoadBenchmark {
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    private static final int DRIVERS = 100;
+    private static final int CARS = 5000;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private HttpClient httpClient;
+    private String baseUrl;
+
+    private final List<Long> driverIds = new ArrayList<>();
+    private final List<Long> carIds = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        context = SpringApplication.run(CarServiceApplication.class,
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--carservice.assignment.max-cars-per-driver=0");
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api";
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        for (int i = 0; i < DRIVERS; i++) {
+            driverIds.add(jdbcTemplate.queryForObject(
+                    "INSERT INTO drivers (id, version, name, age) VALUES (nextval('drivers_seq'), 0, ?, 30) " +
+                    "RETURNING id", Long.class, "Load driver " + i));
+        }
+        for (int i = 0; i < CARS; i++) {
+            carIds.add(jdbcTemplate.queryForObject(
+                    "INSERT INTO cars (id, version, brand, model, year) VALUES (nextval('cars_seq'), 0, ?, ?, 2020) " +
+                    "RETURNING id", Long.class, "Load", "Model " + i));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        Long[] cars = carIds.toArray(new Long[0]);
+        Long[] loadDrivers = driverIds.toArray(new Long[0]);
+        jdbcTemplate.update("DELETE FROM car_assignment_history WHERE car_id = ANY(?)", (Object) cars);
+        jdbcTemplate.update("DELETE FROM cars WHERE id = ANY(?)", (Object) cars);
+        jdbcTemplate.update("DELETE FROM car_tombstones WHERE car_id = ANY(?)", (Object) cars);
+        jdbcTemplate.update("DELETE FROM drivers WHERE id = ANY(?)", (Object) loadDrivers);
+        jdbcTemplate.update("DELETE FROM fleet_counters WHERE dimension = 'driver' AND bucket = ANY(?)",
+                (Object) loadDrivers);
+        context.close();
+    }
+
+    @Benchmark
+    public int getCar() throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/cars/" + randomCar())).GET());
+    }
+
+    @Benchmark
+    public int assignDriver() throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/cars/" + randomCar() + "/driver/" + randomDriver()))
+                .POST(HttpRequest.BodyPublishers.noBody()));
+    }
+
+    private int send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return httpClient.send(request.timeout(Duration.ofSeconds(30)).build(),
+                HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private Long randomCar() {
+        return carIds.get(ThreadLocalRandom.current().nextInt(carIds.size()));
+    }
+
+    private Long randomDriver() {
+        return driverIds.get(ThreadLocalRandom.current().nextInt(driverIds.size()));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ThreadModelLoadBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -2,12 +2,15 @@ package org.example.carservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 
 /**
  * Главный класс Spring Boot приложения.
  * Запускает веб-сервер и конфигурирует все компоненты.
+ * Автоконфигурация R2DBC отключена: реактивный пул создается вручную
+ * в ReactiveDataConfig, чтобы не отключать DataSource для JPA.
  */
-@SpringBootApplication
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
 public class CarServiceApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,103 @@
+package org.example.carservice.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * DataSource, который ограничивает количество одновременно выданных соединений.
+ * Перед получением соединения поток ждет разрешение справедливого семафора,
+ * разрешение возвращается при закрытии соединения. Если разрешение не получено
+ * за отведенное время, getConnection завершается SQLTransientConnectionException.
+ *
+ * Ограничивается именно работа с базой: виртуальный поток не занимает
+ * разрешение, пока разбирает запрос, сериализует ответ или ждет клиента.
+ */
+public class DbAdmissionDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final long timeoutMs;
+
+    public DbAdmissionDataSource(DataSource targetDataSource, int maxConcurrent, long timeoutMs) {
+        super(targetDataSource);
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.timeoutMs = timeoutMs;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return withRelease(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return withRelease(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Ждет разрешение на соединение не дольше timeoutMs.
+     *
+     * @throws SQLTransientConnectionException если разрешение не получено
+     */
+    private void acquire() throws SQLException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            throw new SQLTransientConnectionException(
+                    "No database connection permit available within " + timeoutMs + " ms");
+        }
+    }
+
+    /**
+     * Оборачивает соединение так, чтобы первый вызов close() вернул разрешение.
+     */
+    private Connection withRelease(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            break;
+                    }
+                    boolean close = method.getName().equals("close") && released.compareAndSet(false, true);
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    } finally {
+                        if (close) {
+                            permits.release();
+                        }
+                    }
+                });
+    }
+}
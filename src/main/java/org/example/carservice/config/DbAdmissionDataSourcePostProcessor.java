@@ -0,0 +1,59 @@
+package org.example.carservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * В режиме виртуальных потоков оборачивает DataSource приложения
+ * в DbAdmissionDataSource.
+ * Виртуальных потоков может быть тысячи, а соединений в пуле Hikari - единицы,
+ * поэтому потоки ждут соединение в справедливой очереди семафора с собственным
+ * таймаутом. Разрешение берется при получении соединения и возвращается при
+ * его закрытии, так что запросы, не обращающиеся к базе, не ограничиваются.
+ *
+ * LazyConnectionDataSourceProxy (ReadReplicaConfig) выдает логическое
+ * соединение без обращения к пулу, поэтому его не оборачивают: ограничение
+ * ставится под него, на целевой DataSource, и разрешение берется только
+ * при получении физического соединения.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class DbAdmissionDataSourcePostProcessor implements BeanPostProcessor {
+
+    private final int maxConcurrent;
+    private final long timeoutMs;
+
+    public DbAdmissionDataSourcePostProcessor(
+            @Value("${carservice.db.admission.max-concurrent:10}") int maxConcurrent,
+            @Value("${carservice.db.admission.timeout-ms:2000}") long timeoutMs) {
+        this.maxConcurrent = maxConcurrent;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Ставит ограничение под LazyConnectionDataSourceProxy до того, как
+     * другие обработчики (SqlMetricsDataSourcePostProcessor) обернут его.
+     */
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof LazyConnectionDataSourceProxy lazy
+                && !(lazy.getTargetDataSource() instanceof DbAdmissionDataSource)) {
+            lazy.setTargetDataSource(new DbAdmissionDataSource(lazy.getTargetDataSource(), maxConcurrent, timeoutMs));
+        }
+        return bean;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource dataSource) || bean instanceof DbAdmissionDataSource
+                || bean instanceof LazyConnectionDataSourceProxy) {
+            return bean;
+        }
+        return new DbAdmissionDataSource(dataSource, maxConcurrent, timeoutMs);
+    }
+}
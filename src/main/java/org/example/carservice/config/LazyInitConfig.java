@@ -0,0 +1,30 @@
+package org.example.carservice.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.carservice.service.CarTombstonePurger;
+import org.example.carservice.service.EntityCacheInvalidator;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Исключения из ленивой инициализации бинов (spring.main.lazy-initialization,
+ * включается профилем fast-start).
+ * Пул соединений, миграции Flyway и Hibernate создаются при старте, иначе
+ * их инициализация пришлась бы на первый запрос. EntityCacheInvalidator
+ * должен слушать сообщения об изменениях с других узлов сразу после старта,
+ * а не после первого обращения к нему. CarTombstonePurger ни от кого
+ * не вызывается и без исключения не был бы создан вовсе.
+ */
+@Configuration
+public class LazyInitConfig {
+
+    @Bean
+    static LazyInitializationExcludeFilter eagerInfrastructure() {
+        return LazyInitializationExcludeFilter.forBeanTypes(DataSource.class, FlywayMigrationInitializer.class,
+                EntityManagerFactory.class, EntityCacheInvalidator.class, CarTombstonePurger.class);
+    }
+}
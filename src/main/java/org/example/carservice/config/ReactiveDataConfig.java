@@ -0,0 +1,50 @@
+package org.example.carservice.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * Конфигурация неблокирующего доступа к базе данных через R2DBC
+ * для реактивного API чтения.
+ * Пул R2DBC намеренно не регистрируется как бин ConnectionFactory:
+ * иначе Spring Boot отключит DataSource, на котором работает JPA.
+ * По этой же причине R2dbcAutoConfiguration исключена в CarServiceApplication.
+ */
+@Configuration
+@ConditionalOnProperty(name = "carservice.reactive.enabled", havingValue = "true")
+public class ReactiveDataConfig implements DisposableBean {
+
+    private final ConnectionPool connectionPool;
+
+    public ReactiveDataConfig(@Value("${carservice.reactive.url}") String url,
+                              @Value("${carservice.reactive.username}") String username,
+                              @Value("${carservice.reactive.password}") String password,
+                              @Value("${carservice.reactive.pool.max-size:10}") int maxSize) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration
+                .builder(ConnectionFactories.get(options))
+                .maxSize(maxSize)
+                .build());
+    }
+
+    @Bean
+    public DatabaseClient reactiveDatabaseClient() {
+        return DatabaseClient.create(connectionPool);
+    }
+
+    @Override
+    public void destroy() {
+        connectionPool.dispose();
+    }
+}
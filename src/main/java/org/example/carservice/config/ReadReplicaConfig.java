@@ -0,0 +1,104 @@
+package org.example.carservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Маршрутизация соединений между основной базой и репликой для чтения.
+ * Включается, когда задан carservice.datasource.replica.url; без него
+ * приложение работает с одним DataSource из spring.datasource.
+ *
+ * Транзакции с readOnly = true получают соединение с реплики, остальные
+ * запросы (включая Flyway, записи и работу вне транзакций) идут на основную
+ * базу. Выбор делается по флагу транзакции в момент первого запроса,
+ * поэтому маршрутизатор обернут в LazyConnectionDataSourceProxy.
+ * Hibernate отпускает соединение после каждой транзакции, иначе при
+ * open-in-view сессия держала бы соединение первой транзакции запроса
+ * и запись после чтения ушла бы на реплику.
+ * В режиме виртуальных потоков DbAdmissionDataSourcePostProcessor ставит
+ * ограничение соединений под LazyConnectionDataSourceProxy, на маршрутизатор,
+ * чтобы разрешение занимали только физические соединения.
+ *
+ * Оба пула создаются внутри конфигурации и не регистрируются как бины,
+ * чтобы SqlMetricsDataSourcePostProcessor обернул только итоговый DataSource.
+ * Реплика может отставать от основной базы: чтение сразу после записи
+ * может не увидеть изменение.
+ */
+@Configuration
+@ConditionalOnProperty(name = "carservice.datasource.replica.url")
+public class ReadReplicaConfig implements DisposableBean {
+
+    private static final String PRIMARY = "primary";
+    private static final String REPLICA = "replica";
+
+    private final HikariDataSource primary;
+    private final HikariDataSource replica;
+
+    public ReadReplicaConfig(DataSourceProperties properties, Environment environment) {
+        this.primary = createPool(properties.getUrl(), properties.getUsername(), properties.getPassword(),
+                "primary-pool", environment);
+        this.replica = createPool(environment.getRequiredProperty("carservice.datasource.replica.url"),
+                environment.getProperty("carservice.datasource.replica.username", properties.getUsername()),
+                environment.getProperty("carservice.datasource.replica.password", properties.getPassword()),
+                "replica-pool", environment);
+        this.replica.setReadOnly(true);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource() {
+        AbstractRoutingDataSource routing = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? REPLICA : PRIMARY;
+            }
+        };
+        routing.setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @Override
+    public void destroy() {
+        replica.close();
+        primary.close();
+    }
+
+    /**
+     * Создает пул Hikari с общими настройками spring.datasource.hikari.
+     */
+    private static HikariDataSource createPool(String url, String username, String password, String poolName,
+                                               Environment environment) {
+        HikariDataSource pool = new HikariDataSource();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setJdbcUrl(url);
+        pool.setUsername(username);
+        pool.setPassword(password);
+        pool.setPoolName(poolName);
+        return pool;
+    }
+}
@@ -1,19 +1,78 @@
 package org.example.carservice.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.carservice.dto.AssignmentHistoryDto;
+import org.example.carservice.dto.AssignmentIndexCheckDto;
+import org.example.carservice.dto.BulkAssignmentDto;
+import org.example.carservice.dto.CacheRegionStatsDto;
 import org.example.carservice.dto.DriverDto;
+import org.example.carservice.dto.DtoMapper;
+import org.example.carservice.dto.CarChangeDto;
+import org.example.carservice.dto.CarChangesDto;
+import org.example.carservice.dto.CarImportResultDto;
 import org.example.carservice.dto.CarDto;
 import org.example.carservice.dto.CarTypeDto;
+import org.example.carservice.dto.CursorPageDto;
+import org.example.carservice.dto.FleetStatsDto;
+import org.example.carservice.dto.MultiGetDto;
 import org.example.carservice.entity.Driver;
 import org.example.carservice.entity.Car;
 import org.example.carservice.entity.CarType;
+import org.example.carservice.repository.AssignmentHistoryRepository;
+import org.example.carservice.repository.CarAssignmentRepository;
 import org.example.carservice.repository.DriverRepository;
 import org.example.carservice.repository.CarRepository;
+import org.example.carservice.repository.CarSpecifications;
 import org.example.carservice.repository.CarTypeRepository;
+import org.example.carservice.service.AfterCommit;
+import org.example.carservice.service.AssignmentHistoryRecorder;
+import org.example.carservice.service.AssignmentIndex;
+import org.example.carservice.service.CarCsvImporter;
+import org.example.carservice.service.CarTypeCatalog;
+import org.example.carservice.service.FleetEventBroadcaster;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Основной контроллер REST API для управления водителями, автомобилями и типами автомобилей.
@@ -23,6 +82,26 @@ import java.util.stream.Collectors;
 @RequestMapping("/api")
 public class MainController {
 
+    /**
+     * Максимальный размер страницы при курсорной пагинации.
+     */
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * Размер страницы, если в запросе передан курсор after без limit.
+     */
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
+    /**
+     * Максимальное количество записей в одном пакетном запросе на создание.
+     */
+    private static final int MAX_BATCH_SIZE = 10000;
+
+    /**
+     * Максимальное количество идентификаторов в одном запросе по списку ids.
+     */
+    private static final int MAX_MULTI_GET_SIZE = 500;
+
     @Autowired
     private DriverRepository driverRepo;
 
@@ -32,6 +111,39 @@ public class MainController {
     @Autowired
     private CarTypeRepository carTypeRepo;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CarTypeCatalog carTypeCatalog;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private AssignmentHistoryRepository historyRepo;
+
+    @Autowired
+    private AssignmentHistoryRecorder historyRecorder;
+
+    @Autowired
+    private FleetEventBroadcaster eventBroadcaster;
+
+    @Autowired
+    private AssignmentIndex assignmentIndex;
+
+    @Autowired
+    private CarCsvImporter carImporter;
+
+    @Autowired
+    private CarAssignmentRepository assignmentRepo;
+
+    /**
+     * Максимальное количество автомобилей у одного водителя, 0 - без ограничения.
+     */
+    @Value("${carservice.assignment.max-cars-per-driver:0}")
+    private int maxCarsPerDriver;
+
 
     /**
      * Возвращает список всех водителей в системе в формате DTO.
@@ -39,24 +151,106 @@ public class MainController {
      * @return список всех водителей
      */
     @GetMapping("/drivers")
+    @Transactional(readOnly = true)
     public List<DriverDto> getAllDrivers() {
         return driverRepo.findAll().stream()
-                .map(this::convertToDriverDto)
+                .map(DtoMapper::toDriverDto)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Возвращает страницу водителей, упорядоченных по идентификатору.
+     *
+     * @param after идентификатор, после которого начинается страница
+     * @param limit размер страницы
+     * @return страница водителей и курсор следующей страницы
+     */
+    @GetMapping(value = "/drivers", params = {"limit", "!ids"})
+    @Transactional(readOnly = true)
+    public CursorPageDto<DriverDto> getDriversPage(@RequestParam(defaultValue = "0") Long after,
+                                                   @RequestParam int limit) {
+        int pageSize = clampPageSize(limit);
+        return toCursorPage(driverRepo.findDriverDtosAfter(after, PageRequest.of(0, pageSize + 1)),
+                pageSize, DriverDto::getId);
+    }
+
+    /**
+     * Возвращает страницу водителей после курсора after размером DEFAULT_PAGE_SIZE,
+     * если limit в запросе не указан.
+     *
+     * @param after идентификатор, после которого начинается страница
+     * @return страница водителей и курсор следующей страницы
+     */
+    @GetMapping(value = "/drivers", params = {"after", "!limit", "!ids"})
+    @Transactional(readOnly = true)
+    public CursorPageDto<DriverDto> getDriversAfter(@RequestParam Long after) {
+        return getDriversPage(after, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Возвращает водителей по списку идентификаторов одним запросом.
+     *
+     * @param ids идентификаторы водителей через запятую
+     * @param limit размер страницы; вместе с ids не допускается
+     * @param after курсор страницы; вместе с ids не допускается
+     * @return водители в порядке запроса и ненайденные идентификаторы
+     * @throws ResponseStatusException 400, если идентификаторов больше MAX_MULTI_GET_SIZE
+     *         или вместе с ids переданы limit или after
+     */
+    @GetMapping(value = "/drivers", params = "ids")
+    @Transactional(readOnly = true)
+    public MultiGetDto<DriverDto> getDriversByIds(@RequestParam List<Long> ids,
+                                                  @RequestParam(required = false) String limit,
+                                                  @RequestParam(required = false) String after) {
+        checkMultiGetParams(limit, after);
+        checkMultiGetSize(ids.size());
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        if (requested.isEmpty()) {
+            return new MultiGetDto<>(List.of(), List.of());
+        }
+        return toMultiGet(requested, driverRepo.findDriverDtosByIdIn(requested), DriverDto::getId);
+    }
+
+    /**
+     * Ищет водителей по имени для автодополнения.
+     * Сначала возвращаются имена, начинающиеся с q, затем содержащие q;
+     * результат не длиннее DriverRepository.MAX_SEARCH_RESULTS.
+     *
+     * @param q часть имени водителя
+     * @param limit максимальное количество результатов
+     * @return найденные водители в формате DTO
+     */
+    @GetMapping("/drivers/search")
+    @Transactional(readOnly = true)
+    public List<DriverDto> searchDrivers(@RequestParam String q,
+                                         @RequestParam(defaultValue = "10") int limit) {
+        return driverRepo.searchDriverDtos(q, limit);
+    }
+
     /**
      * Возвращает информацию о водителе по указанному идентификатору.
      *
+     * При совпадении If-None-Match с текущей версией возвращает 304,
+     * проверив только столбец версии.
+     *
      * @param id идентификатор водителя
-     * @return объект DriverDto с данными водителя
+     * @param request текущий запрос для проверки ETag
+     * @return объект DriverDto с данными водителя или null, если ответ 304
      * @throws RuntimeException если водитель не найден
      */
     @GetMapping("/drivers/{id}")
-    public DriverDto getDriver(@PathVariable Long id) {
+    @Transactional(readOnly = true)
+    public ResponseEntity<DriverDto> getDriver(@PathVariable Long id, WebRequest request) {
+        Long version = driverRepo.findVersionById(id)
+                .orElseThrow(() -> new RuntimeException("Driver not found with id: " + id));
+        String etag = "\"" + version + "\"";
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+
         Driver driver = driverRepo.findById(id)
                 .orElseThrow(() -> new RuntimeException("Driver not found with id: " + id));
-        return convertToDriverDto(driver);
+        return ResponseEntity.ok().eTag("\"" + driver.getVersion() + "\"").body(DtoMapper.toDriverDto(driver));
     }
 
     /**
@@ -68,19 +262,53 @@ public class MainController {
     @PostMapping("/drivers")
     public DriverDto createDriver(@RequestBody Driver driver) {
         Driver savedDriver = driverRepo.save(driver);
-        return convertToDriverDto(savedDriver);
+        return DtoMapper.toDriverDto(savedDriver);
+    }
+
+    /**
+     * Создает несколько водителей за один запрос.
+     * Вставки выполняются в одной транзакции пакетами JDBC.
+     *
+     * @param drivers данные новых водителей
+     * @return созданные водители с присвоенными идентификаторами
+     * @throws ResponseStatusException 400, если записей больше MAX_BATCH_SIZE
+     */
+    @PostMapping("/drivers/batch")
+    @Transactional
+    public List<DriverDto> createDrivers(@RequestBody List<Driver> drivers) {
+        checkBatchSize(drivers.size());
+        return driverRepo.saveAll(drivers).stream()
+                .map(DtoMapper::toDriverDto)
+                .collect(Collectors.toList());
     }
 
+    /**
+     * Обновляет информацию о водителе.
+     * Если передан If-Match, обновление выполняется только при совпадении
+     * версии, иначе возвращается 412.
+     *
+     * @param id идентификатор водителя для обновления
+     * @param driverDetails новые данные водителя
+     * @param ifMatch заголовок If-Match с ожидаемой версией
+     * @return обновленный водитель в формате DTO
+     * @throws RuntimeException если водитель не найден
+     */
     @PutMapping("/drivers/{id}")
-    public DriverDto updateDriver(@PathVariable Long id, @RequestBody Driver driverDetails) {
+    @Transactional
+    public ResponseEntity<DriverDto> updateDriver(@PathVariable Long id, @RequestBody Driver driverDetails,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                  String ifMatch) {
         Driver driver = driverRepo.findById(id)
                 .orElseThrow(() -> new RuntimeException("Driver not found with id: " + id));
+        checkIfMatch(ifMatch, driver.getVersion());
 
         driver.setName(driverDetails.getName());
         driver.setAge(driverDetails.getAge());
 
-        Driver updatedDriver = driverRepo.save(driver);
-        return convertToDriverDto(updatedDriver);
+        Driver updatedDriver = driverRepo.saveAndFlush(driver);
+        return ResponseEntity.ok()
+                .eTag("\"" + updatedDriver.getVersion() + "\"")
+                .body(DtoMapper.toDriverDto(updatedDriver));
     }
 
     /**
@@ -92,22 +320,135 @@ public class MainController {
     @DeleteMapping("/drivers/{id}")
     public ResponseEntity<?> deleteDriver(@PathVariable Long id) {
         driverRepo.deleteById(id);
+        assignmentIndex.removeDriver(id);
         return ResponseEntity.ok().build();
     }
 
     /**
      * Возвращает список всех автомобилей, принадлежащих указанному водителю.
+     * Список всегда читается из базы: индекс назначений получает изменения
+     * других экземпляров сервиса с задержкой и не годится для ответа "пусто".
      *
      * @param id идентификатор водителя
      * @return список автомобилей водителя в формате DTO
      */
     @GetMapping("/drivers/{id}/cars")
+    @Transactional(readOnly = true)
     public List<CarDto> getDriverCars(@PathVariable Long id) {
-        return carRepo.findByDriverId(id).stream()
-                .map(this::convertToCarDto)
+        return carRepo.findCarDtosByDriverId(id);
+    }
+
+    /**
+     * Возвращает идентификаторы автомобилей водителя из индекса назначений.
+     * Пока индекс не загружен, идентификаторы читаются из базы данных.
+     * Назначения, в том числе сделанные этим экземпляром сервиса, видны
+     * после доставки их сообщения NOTIFY и применяются в порядке коммитов.
+     *
+     * @param id идентификатор водителя
+     * @return идентификаторы автомобилей по возрастанию
+     */
+    @GetMapping("/drivers/{id}/car-ids")
+    @Transactional(readOnly = true)
+    public List<Long> getDriverCarIds(@PathVariable Long id) {
+        if (assignmentIndex.isReady()) {
+            return assignmentIndex.getCarIds(id);
+        }
+        return carRepo.findCarDtosByDriverId(id).stream()
+                .map(CarDto::getId)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Назначает водителя сразу на несколько автомобилей.
+     * Обновление выполняется одним UPDATE по списку идентификаторов.
+     * Перед ним автомобили и счетчики всех затронутых водителей блокируются
+     * в порядке возрастания идентификаторов, поэтому встречные массовые
+     * назначения не блокируют друг друга по кругу.
+     * Если после назначения у водителя окажется больше допустимого
+     * количества автомобилей, ничего не меняется и возвращается 409.
+     *
+     * @param driverId идентификатор водителя
+     * @param carIds идентификаторы автомобилей
+     * @return обновленные и не найденные идентификаторы автомобилей
+     * @throws RuntimeException если водитель не найден
+     */
+    @PostMapping("/drivers/{driverId}/cars")
+    @Transactional
+    public BulkAssignmentDto assignDriverToCars(@PathVariable Long driverId, @RequestBody List<Long> carIds) {
+        checkBatchSize(carIds.size());
+        if (!driverRepo.existsById(driverId)) {
+            throw new RuntimeException("Driver not found with id: " + driverId);
+        }
+        Set<Long> requested = new HashSet<>(carIds);
+        if (requested.isEmpty()) {
+            return new BulkAssignmentDto(driverId, List.of(), List.of());
+        }
+
+        if (maxCarsPerDriver > 0) {
+            assignmentRepo.lockDriver(driverId);
+        }
+        List<CarRepository.CarDriver> existing = carRepo.lockCarDriversByIdIn(requested);
+        List<Long> affected = existing.stream()
+                .map(CarRepository.CarDriver::getId)
                 .collect(Collectors.toList());
+        if (maxCarsPerDriver > 0) {
+            long added = existing.stream()
+                    .filter(car -> !driverId.equals(car.getDriverId()))
+                    .count();
+            if (assignmentRepo.countCars(driverId) + added > maxCarsPerDriver) {
+                throw driverCapacityExceeded(driverId);
+            }
+        }
+        if (!affected.isEmpty()) {
+            Set<Long> counterKeys = new HashSet<>();
+            counterKeys.add(driverId);
+            existing.forEach(car -> counterKeys.add(car.getDriverId()));
+            assignmentRepo.lockDriverCounters(counterKeys);
+            carRepo.assignDriverToCars(driverId, affected);
+        }
+        for (CarRepository.CarDriver car : existing) {
+            historyRecorder.record(car.getId(), car.getDriverId(), driverId);
+            eventBroadcaster.publish(FleetEventBroadcaster.ASSIGNED,
+                    car.getId(), driverId, car.getDriverId(), car.getCarTypeId());
+        }
+        assignmentIndex.assignAll(affected, driverId);
+        return toBulkAssignment(driverId, requested, affected);
     }
 
+    /**
+     * Снимает водителя сразу с нескольких его автомобилей.
+     * Обновление выполняется одним UPDATE по списку идентификаторов.
+     *
+     * @param driverId идентификатор водителя
+     * @param carIds идентификаторы автомобилей
+     * @return обновленные идентификаторы и идентификаторы автомобилей,
+     *         не найденных среди автомобилей водителя
+     */
+    @DeleteMapping("/drivers/{driverId}/cars")
+    @Transactional
+    public BulkAssignmentDto unassignDriverFromCars(@PathVariable Long driverId, @RequestBody List<Long> carIds) {
+        checkBatchSize(carIds.size());
+        Set<Long> requested = new HashSet<>(carIds);
+        if (requested.isEmpty()) {
+            return new BulkAssignmentDto(driverId, List.of(), List.of());
+        }
+
+        List<CarRepository.CarDriver> existing = carRepo.lockCarDriversByDriverIdAndIdIn(driverId, requested);
+        List<Long> affected = existing.stream()
+                .map(CarRepository.CarDriver::getId)
+                .collect(Collectors.toList());
+        if (!affected.isEmpty()) {
+            assignmentRepo.lockDriverCounters(Arrays.asList(null, driverId));
+            carRepo.unassignDriverFromCars(driverId, affected);
+        }
+        for (CarRepository.CarDriver car : existing) {
+            historyRecorder.record(car.getId(), driverId, null);
+            eventBroadcaster.publish(FleetEventBroadcaster.UNASSIGNED,
+                    car.getId(), null, driverId, car.getCarTypeId());
+        }
+        assignmentIndex.assignAll(affected, null);
+        return toBulkAssignment(driverId, requested, affected);
+    }
 
     /**
      * Возвращает список всех автомобилей в системе в формате DTO.
@@ -116,56 +457,349 @@ public class MainController {
      * @return список всех автомобилей
      */
     @GetMapping("/cars")
+    @Transactional(readOnly = true)
     public List<CarDto> getAllCars() {
-        return carRepo.findAll().stream()
-                .map(this::convertToCarDto)
-                .collect(Collectors.toList());
+        return carRepo.findAllCarDtos();
+    }
+
+    /**
+     * Возвращает страницу автомобилей, упорядоченных по идентификатору.
+     *
+     * @param after идентификатор, после которого начинается страница
+     * @param limit размер страницы
+     * @return страница автомобилей и курсор следующей страницы
+     */
+    @GetMapping(value = "/cars", params = {"limit", "!ids"})
+    @Transactional(readOnly = true)
+    public CursorPageDto<CarDto> getCarsPage(@RequestParam(defaultValue = "0") Long after,
+                                             @RequestParam int limit) {
+        int pageSize = clampPageSize(limit);
+        return toCursorPage(carRepo.findCarDtosAfter(after, PageRequest.of(0, pageSize + 1)),
+                pageSize, CarDto::getId);
+    }
+
+    /**
+     * Возвращает страницу автомобилей после курсора after размером DEFAULT_PAGE_SIZE,
+     * если limit в запросе не указан.
+     *
+     * @param after идентификатор, после которого начинается страница
+     * @return страница автомобилей и курсор следующей страницы
+     */
+    @GetMapping(value = "/cars", params = {"after", "!limit", "!ids"})
+    @Transactional(readOnly = true)
+    public CursorPageDto<CarDto> getCarsAfter(@RequestParam Long after) {
+        return getCarsPage(after, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Возвращает автомобили по списку идентификаторов одним запросом
+     * вместе с водителем и типом.
+     *
+     * @param ids идентификаторы автомобилей через запятую
+     * @param limit размер страницы; вместе с ids не допускается
+     * @param after курсор страницы; вместе с ids не допускается
+     * @return автомобили в порядке запроса и ненайденные идентификаторы
+     * @throws ResponseStatusException 400, если идентификаторов больше MAX_MULTI_GET_SIZE
+     *         или вместе с ids переданы limit или after
+     */
+    @GetMapping(value = "/cars", params = "ids")
+    @Transactional(readOnly = true)
+    public MultiGetDto<CarDto> getCarsByIds(@RequestParam List<Long> ids,
+                                            @RequestParam(required = false) String limit,
+                                            @RequestParam(required = false) String after) {
+        checkMultiGetParams(limit, after);
+        checkMultiGetSize(ids.size());
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        if (requested.isEmpty()) {
+            return new MultiGetDto<>(List.of(), List.of());
+        }
+        return toMultiGet(requested, carRepo.findCarDtosByIdIn(requested), CarDto::getId);
+    }
+
+    /**
+     * Ищет автомобили по набору необязательных фильтров.
+     * Фильтры объединяются через AND, результат упорядочен по идентификатору
+     * и разбит на страницы курсором after.
+     *
+     * @param brand марка автомобиля
+     * @param model модель автомобиля
+     * @param yearFrom минимальный год выпуска
+     * @param yearTo максимальный год выпуска
+     * @param carTypeId идентификатор типа автомобиля
+     * @param driverId идентификатор водителя
+     * @param unassigned только автомобили без водителя
+     * @param after идентификатор, после которого начинается страница
+     * @param limit размер страницы
+     * @return страница найденных автомобилей и курсор следующей страницы
+     */
+    @GetMapping("/cars/search")
+    @Transactional(readOnly = true)
+    public CursorPageDto<CarDto> searchCars(@RequestParam(required = false) String brand,
+                                            @RequestParam(required = false) String model,
+                                            @RequestParam(required = false) Integer yearFrom,
+                                            @RequestParam(required = false) Integer yearTo,
+                                            @RequestParam(required = false) Long carTypeId,
+                                            @RequestParam(required = false) Long driverId,
+                                            @RequestParam(defaultValue = "false") boolean unassigned,
+                                            @RequestParam(defaultValue = "0") Long after,
+                                            @RequestParam(defaultValue = "100") int limit) {
+        List<Specification<Car>> filters = new ArrayList<>();
+        if (brand != null) {
+            filters.add(CarSpecifications.hasBrand(brand));
+        }
+        if (model != null) {
+            filters.add(CarSpecifications.hasModel(model));
+        }
+        if (yearFrom != null) {
+            filters.add(CarSpecifications.yearFrom(yearFrom));
+        }
+        if (yearTo != null) {
+            filters.add(CarSpecifications.yearTo(yearTo));
+        }
+        if (carTypeId != null) {
+            filters.add(CarSpecifications.hasCarType(carTypeId));
+        }
+        if (driverId != null) {
+            filters.add(CarSpecifications.hasDriver(driverId));
+        }
+        if (unassigned) {
+            filters.add(CarSpecifications.isUnassigned());
+        }
+
+        int pageSize = clampPageSize(limit);
+        return toCursorPage(carRepo.searchCarDtos(Specification.allOf(filters), after, pageSize + 1),
+                pageSize, CarDto::getId);
+    }
+
+    /**
+     * Возвращает изменения автопарка после указанной отметки: созданные
+     * и измененные автомобили и идентификаторы удаленных.
+     * Клиент передает в since значение watermark из предыдущего ответа
+     * и повторяет запрос, пока hasMore равно true. Если с отметки ничего
+     * не менялось, ответ строится без обращения к таблицам.
+     * Изменения отдаются только до номера, который уже не может получить
+     * ни одна незавершенная транзакция, поэтому изменение долгой транзакции
+     * с меньшим номером не окажется ниже отметки клиента. Запрос читает
+     * основную базу: блокировки незавершенных транзакций на реплике не видны.
+     * Если since старше удаленных по сроку хранения отметок об удалении,
+     * возвращается 410: клиенту нужно загрузить автопарк заново (since=0).
+     *
+     * @param since номер изменения, после которого нужны изменения
+     * @param limit максимальное количество изменений в ответе
+     * @return изменения и новая отметка
+     * @throws ResponseStatusException 410, если удаления после since уже не хранятся
+     */
+    @GetMapping("/cars/changes")
+    @Transactional
+    public CarChangesDto getCarChanges(@RequestParam(defaultValue = "0") long since,
+                                       @RequestParam(defaultValue = "1000") int limit) {
+        CarRepository.ChangeFeedBounds bounds = carRepo.findChangeFeedBounds();
+        long purgedModSeq = bounds.getPurgedModSeq();
+        if (since > 0 && since < purgedModSeq) {
+            throw new ResponseStatusException(HttpStatus.GONE,
+                    "Deletions before " + purgedModSeq + " are no longer available, reload with since=0");
+        }
+        long upTo = bounds.getLastModSeq() != null ? bounds.getLastModSeq() : 0;
+        if (bounds.getInFlightFloor() != null) {
+            upTo = Math.min(upTo, bounds.getInFlightFloor());
+        }
+        if (upTo <= since) {
+            return new CarChangesDto(List.of(), List.of(), since, false);
+        }
+
+        int pageSize = clampPageSize(limit);
+        List<CarChangeDto> cars = carRepo.findChangesSince(since, upTo, PageRequest.of(0, pageSize + 1));
+        List<CarRepository.CarTombstone> tombstones = carRepo.findTombstonesSince(since, upTo, pageSize + 1);
+
+        List<CarChangeDto> changed = new ArrayList<>();
+        List<Long> deletedIds = new ArrayList<>();
+        long watermark = since;
+        int carIndex = 0;
+        int tombstoneIndex = 0;
+        while (changed.size() + deletedIds.size() < pageSize
+                && (carIndex < cars.size() || tombstoneIndex < tombstones.size())) {
+            boolean takeCar = tombstoneIndex >= tombstones.size()
+                    || (carIndex < cars.size()
+                    && cars.get(carIndex).getModSeq() < tombstones.get(tombstoneIndex).getModSeq());
+            if (takeCar) {
+                CarChangeDto car = cars.get(carIndex++);
+                changed.add(car);
+                watermark = car.getModSeq();
+            } else {
+                CarRepository.CarTombstone tombstone = tombstones.get(tombstoneIndex++);
+                deletedIds.add(tombstone.getCarId());
+                watermark = tombstone.getModSeq();
+            }
+        }
+        boolean hasMore = carIndex < cars.size() || tombstoneIndex < tombstones.size();
+        return new CarChangesDto(changed, deletedIds, watermark, hasMore);
+    }
+
+    /**
+     * Подписывает клиента на поток событий изменения автопарка (Server-Sent Events).
+     * Каждое событие несет порядковый номер; при переподключении клиент
+     * передает последний полученный номер в Last-Event-ID и получает
+     * пропущенные события. Если они уже вытеснены из буфера, приходит
+     * событие reset, после которого состояние нужно загрузить заново.
+     *
+     * @param driverId только события по автомобилям водителя
+     * @param carTypeId только события по автомобилям типа
+     * @param lastEventId номер последнего полученного события
+     * @return поток событий
+     */
+    @GetMapping(value = "/cars/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamCarEvents(@RequestParam(required = false) Long driverId,
+                                      @RequestParam(required = false) Long carTypeId,
+                                      @RequestHeader(value = "Last-Event-ID", required = false)
+                                      Long lastEventId) {
+        return eventBroadcaster.subscribe(lastEventId, driverId, carTypeId);
+    }
+
+    /**
+     * Выгружает все автомобили в формате NDJSON (один CarDto на строку).
+     * Строки пишутся в ответ по мере чтения из курсора базы данных,
+     * поэтому расход памяти не зависит от количества автомобилей.
+     *
+     * @param response HTTP-ответ, в который пишутся данные
+     * @throws IOException если запись в ответ не удалась
+     */
+    @GetMapping("/cars/export")
+    @Transactional(readOnly = true)
+    public void exportCars(HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+
+        ObjectWriter writer = objectMapper.writerFor(CarDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n");
+        try (Stream<CarDto> cars = carRepo.streamAllCarDtos();
+             SequenceWriter sequence = writer.writeValues(response.getOutputStream())) {
+            Iterator<CarDto> iterator = cars.iterator();
+            while (iterator.hasNext()) {
+                sequence.write(iterator.next());
+            }
+        }
     }
 
     /**
      * Возвращает информацию об автомобиле по указанному идентификатору.
      *
+     * ETag складывается из версий автомобиля, водителя и типа. При совпадении
+     * If-None-Match возвращает 304, прочитав только столбцы версий.
+     *
      * @param id идентификатор автомобиля
-     * @return объект CarDto с данными автомобиля
+     * @param request текущий запрос для проверки ETag
+     * @return объект CarDto с данными автомобиля или null, если ответ 304
      * @throws RuntimeException если автомобиль не найден
      */
     @GetMapping("/cars/{id}")
-    public CarDto getCar(@PathVariable Long id) {
-        Car car = carRepo.findById(id)
+    @Transactional(readOnly = true)
+    public ResponseEntity<CarDto> getCar(@PathVariable Long id, WebRequest request) {
+        String etag = carEtag(carRepo.findVersionsById(id)
+                .orElseThrow(() -> new RuntimeException("Car not found with id: " + id)));
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+
+        CarDto car = carRepo.findCarDtoById(id)
                 .orElseThrow(() -> new RuntimeException("Car not found with id: " + id));
-        return convertToCarDto(car);
+        return ResponseEntity.ok().eTag(etag).body(car);
     }
 
     /**
      * Создает новый автомобиль в системе.
      *
+     * Водитель и тип передаются идентификатором и загружаются из базы.
+     *
      * @param car данные нового автомобиля
      * @return созданный автомобиль с присвоенным идентификатором
+     * @throws RuntimeException если водитель или тип автомобиля не найдены
+     * @throws ResponseStatusException 409, если у водителя уже максимум автомобилей
      */
     @PostMapping("/cars")
+    @Transactional
     public Car createCar(@RequestBody Car car) {
-        return carRepo.save(car);
+        resolveAssociations(car);
+        checkDriverCapacity(List.of(car));
+        Car savedCar = carRepo.save(car);
+        if (savedCar.getDriver() != null) {
+            assignmentIndex.assign(savedCar.getId(), savedCar.getDriver().getId());
+        }
+        publishCarEvent(FleetEventBroadcaster.CREATED, savedCar);
+        return savedCar;
+    }
+
+    /**
+     * Создает несколько автомобилей за один запрос.
+     * Вставки выполняются в одной транзакции пакетами JDBC.
+     *
+     * @param cars данные новых автомобилей
+     * @return созданные автомобили с присвоенными идентификаторами
+     * @throws ResponseStatusException 400, если записей больше MAX_BATCH_SIZE
+     * @throws ResponseStatusException 409, если у водителя окажется больше допустимого количества автомобилей
+     */
+    @PostMapping("/cars/batch")
+    @Transactional
+    public List<Car> createCars(@RequestBody List<Car> cars) {
+        checkBatchSize(cars.size());
+        cars.forEach(this::resolveAssociations);
+        checkDriverCapacity(cars);
+        List<Car> savedCars = carRepo.saveAll(cars);
+        for (Car car : savedCars) {
+            if (car.getDriver() != null) {
+                assignmentIndex.assign(car.getId(), car.getDriver().getId());
+            }
+            publishCarEvent(FleetEventBroadcaster.CREATED, car);
+        }
+        return savedCars;
+    }
+
+    /**
+     * Импортирует автомобили из CSV-файла, переданного в теле запроса.
+     * Файл читается потоком и загружается в базу через COPY, поэтому
+     * подходит для сотен тысяч строк. Строки с id обновляют существующие
+     * автомобили, строки без id создают новые. Некорректные строки
+     * пропускаются и перечисляются в ответе.
+     *
+     * @param request HTTP-запрос с CSV в теле (UTF-8, первая строка - заголовок)
+     * @return количество обработанных строк и ошибки по строкам
+     * @throws IOException если тело запроса не удалось прочитать
+     */
+    @PostMapping(value = "/import/cars", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE})
+    public CarImportResultDto importCars(HttpServletRequest request) throws IOException {
+        return carImporter.importCars(request.getInputStream());
     }
 
     /**
      * Обновляет информацию об автомобиле.
+     * Если передан If-Match, обновление выполняется только при совпадении
+     * версии автомобиля, иначе возвращается 412.
      *
      * @param id идентификатор автомобиля для обновления
      * @param carDetails новые данные автомобиля
+     * @param ifMatch заголовок If-Match с ETag, полученным из GET /api/cars/{id}
      * @return обновленный объект Car
      * @throws RuntimeException если автомобиль не найден
      */
     @PutMapping("/cars/{id}")
-    public Car updateCar(@PathVariable Long id, @RequestBody Car carDetails) {
+    @Transactional
+    public ResponseEntity<Car> updateCar(@PathVariable Long id, @RequestBody Car carDetails,
+                                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                         String ifMatch) {
         Car car = carRepo.findById(id)
                 .orElseThrow(() -> new RuntimeException("Car not found with id: " + id));
+        checkIfMatch(ifMatch, car.getVersion());
 
         car.setBrand(carDetails.getBrand());
         car.setModel(carDetails.getModel());
         car.setYear(carDetails.getYear());
-        car.setCarType(carDetails.getCarType());
+        car.setCarType(resolveCarType(carDetails.getCarType()));
 
-        return carRepo.save(car);
+        Car savedCar = carRepo.save(car);
+        publishCarEvent(FleetEventBroadcaster.UPDATED, savedCar);
+        String etag = carEtag(carRepo.findVersionsById(id)
+                .orElseThrow(() -> new RuntimeException("Car not found with id: " + id)));
+        return ResponseEntity.ok().eTag(etag).body(savedCar);
     }
 
     /**
@@ -175,30 +809,43 @@ public class MainController {
      * @return ответ с кодом 200 OK
      */
     @DeleteMapping("/cars/{id}")
+    @Transactional
     public ResponseEntity<?> deleteCar(@PathVariable Long id) {
-        carRepo.deleteById(id);
+        carRepo.findById(id).ifPresent(car -> {
+            carRepo.delete(car);
+            assignmentIndex.removeCar(id);
+            publishCarEvent(FleetEventBroadcaster.DELETED, car);
+        });
         return ResponseEntity.ok().build();
     }
 
     /**
      * Назначает водителя на указанный автомобиль.
+     * Существование автомобиля и водителя и загрузка водителя проверяются
+     * в том же UPDATE, что и назначение, поэтому одновременные назначения
+     * не превышают ограничение на количество автомобилей у водителя.
      *
      * @param carId идентификатор автомобиля
      * @param driverId идентификатор водителя
      * @return обновленный автомобиль в формате DTO
-     * @throws RuntimeException если автомобиль или водитель не найдены
+     * @throws ResponseStatusException 404, если автомобиль или водитель не найдены,
+     *         409, если у водителя уже максимальное количество автомобилей
      */
     @PostMapping("/cars/{carId}/driver/{driverId}")
+    @Transactional
     public CarDto assignDriver(@PathVariable Long carId, @PathVariable Long driverId) {
-        Car car = carRepo.findById(carId)
-                .orElseThrow(() -> new RuntimeException("Car not found with id: " + carId));
-        Driver driver = driverRepo.findById(driverId)
-                .orElseThrow(() -> new RuntimeException("Driver not found with id: " + driverId));
+        CarAssignmentRepository.Assignment assignment = assignmentRepo
+                .assignDriver(carId, driverId, maxCarsPerDriver)
+                .orElseThrow(() -> assignmentFailure(carId, driverId));
+        Long oldDriverId = assignment.getPreviousDriverId();
 
-        car.setDriver(driver);
-        Car savedCar = carRepo.save(car);
+        historyRecorder.record(carId, oldDriverId, driverId);
+        assignmentIndex.assign(carId, driverId);
+        eventBroadcaster.publish(FleetEventBroadcaster.ASSIGNED, carId, driverId, oldDriverId,
+                assignment.getCarTypeId());
 
-        return convertToCarDto(savedCar);
+        return carRepo.findCarDtoById(carId)
+                .orElseThrow(() -> new RuntimeException("Car not found with id: " + carId));
     }
 
     /**
@@ -209,26 +856,119 @@ public class MainController {
      * @throws RuntimeException если автомобиль не найден
      */
     @DeleteMapping("/cars/{carId}/driver")
+    @Transactional
     public CarDto removeDriver(@PathVariable Long carId) {
         Car car = carRepo.findById(carId)
                 .orElseThrow(() -> new RuntimeException("Car not found with id: " + carId));
+        Long oldDriverId = car.getDriver() != null ? car.getDriver().getId() : null;
 
         car.setDriver(null);
         Car savedCar = carRepo.save(car);
+        historyRecorder.record(carId, oldDriverId, null);
+        assignmentIndex.assign(carId, null);
+        eventBroadcaster.publish(FleetEventBroadcaster.UNASSIGNED, carId, null, oldDriverId,
+                savedCar.getCarType() != null ? savedCar.getCarType().getId() : null);
 
-        return convertToCarDto(savedCar);
+        return DtoMapper.toCarDto(savedCar);
+    }
+
+    /**
+     * Возвращает идентификатор водителя автомобиля из индекса назначений.
+     * Пока индекс не загружен, водитель читается из базы данных.
+     * Назначения, в том числе сделанные этим экземпляром сервиса, видны
+     * после доставки их сообщения NOTIFY и применяются в порядке коммитов.
+     *
+     * @param carId идентификатор автомобиля
+     * @return идентификатор водителя или 204 No Content, если водителя нет
+     */
+    @GetMapping("/cars/{carId}/driver-id")
+    @Transactional(readOnly = true)
+    public ResponseEntity<Long> getCarDriverId(@PathVariable Long carId) {
+        Optional<Long> driverId = assignmentIndex.isReady()
+                ? assignmentIndex.getDriverId(carId)
+                : carRepo.findCarDriversByIdIn(List.of(carId)).stream()
+                        .map(CarRepository.CarDriver::getDriverId)
+                        .filter(Objects::nonNull)
+                        .findFirst();
+        return driverId.map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+
+    /**
+     * Возвращает историю назначений водителей на автомобиль,
+     * начиная с последних изменений.
+     * Записи пишутся асинхронно, поэтому последние назначения
+     * появляются в истории с задержкой до интервала сброса очереди.
+     *
+     * @param id идентификатор автомобиля
+     * @param limit максимальное количество записей
+     * @return записи истории назначений
+     */
+    @GetMapping("/cars/{id}/assignments")
+    @Transactional(readOnly = true)
+    public List<AssignmentHistoryDto> getCarAssignments(@PathVariable Long id,
+                                                        @RequestParam(defaultValue = "100") int limit) {
+        return historyRepo.findByCarId(id, clampPageSize(limit));
     }
 
     /**
      * Возвращает список всех типов автомобилей в системе.
+     * Ответ отдается из заранее сериализованного снимка каталога,
+     * при совпадении If-None-Match возвращается 304 без обращения к базе данных.
      *
-     * @return список всех типов автомобилей
+     * @param acceptEncoding заголовок Accept-Encoding запроса
+     * @param request текущий запрос для проверки ETag
+     * @return JSON-массив всех типов автомобилей или null, если ответ 304
      */
     @GetMapping("/car-types")
-    public List<CarTypeDto> getAllCarTypes() {
-        return carTypeRepo.findAll().stream()
-                .map(this::convertToCarTypeDto)
-                .collect(Collectors.toList());
+    public ResponseEntity<byte[]> getAllCarTypes(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest request) {
+        CarTypeCatalog.Snapshot snapshot = carTypeCatalog.getSnapshot();
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String etag = gzip ? snapshot.getGzipEtag() : snapshot.getEtag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .eTag(etag);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.getGzipJson());
+        }
+        return response.body(snapshot.getJson());
+    }
+
+    /**
+     * Возвращает страницу типов автомобилей, упорядоченных по идентификатору.
+     *
+     * @param after идентификатор, после которого начинается страница
+     * @param limit размер страницы
+     * @return страница типов автомобилей и курсор следующей страницы
+     */
+    @GetMapping(value = "/car-types", params = "limit")
+    @Transactional(readOnly = true)
+    public CursorPageDto<CarTypeDto> getCarTypesPage(@RequestParam(defaultValue = "0") Long after,
+                                                     @RequestParam int limit) {
+        int pageSize = clampPageSize(limit);
+        return toCursorPage(carTypeRepo.findCarTypeDtosAfter(after, PageRequest.of(0, pageSize + 1)),
+                pageSize, CarTypeDto::getId);
+    }
+
+    /**
+     * Возвращает страницу типов автомобилей после курсора after размером DEFAULT_PAGE_SIZE,
+     * если limit в запросе не указан.
+     *
+     * @param after идентификатор, после которого начинается страница
+     * @return страница типов автомобилей и курсор следующей страницы
+     */
+    @GetMapping(value = "/car-types", params = {"after", "!limit"})
+    @Transactional(readOnly = true)
+    public CursorPageDto<CarTypeDto> getCarTypesAfter(@RequestParam Long after) {
+        return getCarTypesPage(after, DEFAULT_PAGE_SIZE);
     }
 
     /**
@@ -239,10 +979,11 @@ public class MainController {
      * @throws RuntimeException если тип автомобиля не найден
      */
     @GetMapping("/car-types/{id}")
+    @Transactional(readOnly = true)
     public CarTypeDto getCarType(@PathVariable Long id) {
         CarType carType = carTypeRepo.findById(id)
                 .orElseThrow(() -> new RuntimeException("Car type not found with id: " + id));
-        return convertToCarTypeDto(carType);
+        return DtoMapper.toCarTypeDto(carType);
     }
 
     /**
@@ -253,7 +994,9 @@ public class MainController {
      */
     @PostMapping("/car-types")
     public CarType createCarType(@RequestBody CarType carType) {
-        return carTypeRepo.save(carType);
+        CarType savedCarType = carTypeRepo.save(carType);
+        carTypeCatalog.invalidate();
+        return savedCarType;
     }
 
     /**
@@ -265,6 +1008,7 @@ public class MainController {
      * @throws RuntimeException если тип автомобиля не найден
      */
     @PutMapping("/car-types/{id}")
+    @Transactional
     public CarType updateCarType(@PathVariable Long id, @RequestBody CarType carTypeDetails) {
         CarType carType = carTypeRepo.findById(id)
                 .orElseThrow(() -> new RuntimeException("Car type not found with id: " + id));
@@ -272,7 +1016,9 @@ public class MainController {
         carType.setName(carTypeDetails.getName());
         carType.setDescription(carTypeDetails.getDescription());
 
-        return carTypeRepo.save(carType);
+        CarType savedCarType = carTypeRepo.saveAndFlush(carType);
+        AfterCommit.run(carTypeCatalog::invalidate);
+        return savedCarType;
     }
 
     /**
@@ -284,46 +1030,422 @@ public class MainController {
     @DeleteMapping("/car-types/{id}")
     public ResponseEntity<?> deleteCarType(@PathVariable Long id) {
         carTypeRepo.deleteById(id);
+        carTypeCatalog.invalidate();
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * Возвращает сводную статистику автопарка: количество автомобилей
+     * по водителям, типам, годам выпуска и без водителя.
+     * Читает счетчики, которые обновляются при каждом изменении cars,
+     * и не сканирует таблицу автомобилей.
+     *
+     * @return статистика автопарка
+     */
+    @GetMapping("/stats/fleet")
+    @Transactional(readOnly = true)
+    public FleetStatsDto getFleetStats() {
+        long total = 0;
+        long unassigned = 0;
+        Map<Long, Long> perDriver = new HashMap<>();
+        Map<Long, Long> perCarType = new HashMap<>();
+        Map<Integer, Long> perYear = new TreeMap<>();
+
+        for (CarRepository.FleetCounter counter : carRepo.findFleetCounters()) {
+            switch (counter.getDimension()) {
+                case "driver" -> {
+                    if (counter.getBucket() == 0) {
+                        unassigned = counter.getCarCount();
+                    } else {
+                        perDriver.put(counter.getBucket(), counter.getCarCount());
+                    }
+                }
+                case "car_type" -> perCarType.put(counter.getBucket(), counter.getCarCount());
+                case "year" -> {
+                    perYear.put(counter.getBucket().intValue(), counter.getCarCount());
+                    total += counter.getCarCount();
+                }
+                default -> { }
+            }
+        }
+        return new FleetStatsDto(total, unassigned, perDriver, perCarType, perYear);
+    }
+
+    /**
+     * Возвращает статистику попаданий и промахов кэша второго уровня
+     * по регионам (водители и типы автомобилей).
+     *
+     * @return статистика регионов кэша
+     */
+    @GetMapping("/stats/cache")
+    public List<CacheRegionStatsDto> getCacheStats() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .map(region -> {
+                    CacheRegionStatistics stats = statistics.getDomainDataRegionStatistics(region);
+                    return new CacheRegionStatsDto(region, stats.getHitCount(), stats.getMissCount(),
+                            stats.getPutCount(), stats.getElementCountInMemory());
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Сверяет индекс назначений водителей с базой данных.
+     *
+     * @return результат проверки со списком расходящихся автомобилей
+     */
+    @GetMapping("/stats/assignment-index")
+    public AssignmentIndexCheckDto checkAssignmentIndex() {
+        return assignmentIndex.check();
+    }
+
+    /**
+     * Перестраивает индекс назначений водителей из базы данных.
+     *
+     * @return результат проверки индекса после перестроения
+     */
+    @PostMapping("/stats/assignment-index/rebuild")
+    public AssignmentIndexCheckDto rebuildAssignmentIndex() {
+        assignmentIndex.rebuild();
+        return assignmentIndex.check();
+    }
+
+    /**
+     * Обрабатывает нехватку соединений с базой: пул или DbAdmissionDataSource
+     * не выдали соединение за отведенное время.
+     *
+     * @return ответ с кодом 503 Service Unavailable и Retry-After
+     */
+    @ExceptionHandler({CannotCreateTransactionException.class, CannotGetJdbcConnectionException.class})
+    public ResponseEntity<?> handleConnectionUnavailable() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .build();
+    }
+
+    /**
+     * Обрабатывает конфликт версий, обнаруженный Hibernate при сохранении.
+     *
+     * @return ответ с кодом 412 Precondition Failed
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<?> handleVersionConflict() {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+    }
+
+    /**
+     * Определяет, почему условное назначение водителя не обновило автомобиль.
+     *
+     * @param carId идентификатор автомобиля
+     * @param driverId идентификатор водителя
+     * @return исключение с кодом 404 или 409
+     */
+    private ResponseStatusException assignmentFailure(Long carId, Long driverId) {
+        if (!carRepo.existsById(carId)) {
+            return new ResponseStatusException(HttpStatus.NOT_FOUND, "Car not found with id: " + carId);
+        }
+        if (!driverRepo.existsById(driverId)) {
+            return new ResponseStatusException(HttpStatus.NOT_FOUND, "Driver not found with id: " + driverId);
+        }
+        return driverCapacityExceeded(driverId);
+    }
+
+    /**
+     * Создает исключение о превышении количества автомобилей у водителя.
+     *
+     * @param driverId идентификатор водителя
+     * @return исключение с кодом 409
+     */
+    private ResponseStatusException driverCapacityExceeded(Long driverId) {
+        return new ResponseStatusException(HttpStatus.CONFLICT,
+                "Driver " + driverId + " cannot have more than " + maxCarsPerDriver + " cars");
+    }
+
+    /**
+     * Проверяет, что после создания автомобилей ни у одного водителя не окажется
+     * больше maxCarsPerDriver автомобилей. Назначения водителям блокируются
+     * до конца транзакции в порядке возрастания их идентификаторов.
+     *
+     * @param cars новые автомобили с загруженными водителями
+     * @throws ResponseStatusException 409, если ограничение будет превышено
+     */
+    private void checkDriverCapacity(List<Car> cars) {
+        if (maxCarsPerDriver <= 0) {
+            return;
+        }
+        Map<Long, Long> added = cars.stream()
+                .filter(car -> car.getDriver() != null)
+                .collect(Collectors.groupingBy(car -> car.getDriver().getId(), TreeMap::new,
+                        Collectors.counting()));
+        added.forEach((driverId, count) -> {
+            assignmentRepo.lockDriver(driverId);
+            if (assignmentRepo.countCars(driverId) + count > maxCarsPerDriver) {
+                throw driverCapacityExceeded(driverId);
+            }
+        });
+    }
+
+    /**
+     * Заменяет водителя и тип из тела запроса на сущности, загруженные по id.
+     * В JSON связи обычно передаются только идентификатором
+     * ({"carType":{"id":2}}); такие объекты без версии Hibernate считает
+     * новыми и не сохраняет автомобиль.
+     *
+     * @param car автомобиль из тела запроса
+     * @throws ResponseStatusException 400, если у связи не указан id
+     * @throws RuntimeException если водитель или тип автомобиля не найдены
+     */
+    private void resolveAssociations(Car car) {
+        car.setCarType(resolveCarType(car.getCarType()));
+        Driver driver = car.getDriver();
+        if (driver != null) {
+            Long driverId = requireReferenceId(driver.getId(), "driver");
+            car.setDriver(driverRepo.findById(driverId)
+                    .orElseThrow(() -> new RuntimeException("Driver not found with id: " + driverId)));
+        }
+    }
+
+    /**
+     * Загружает тип автомобиля, указанный в теле запроса по id.
+     *
+     * @param carType тип из тела запроса или null
+     * @return загруженный тип или null, если тип не указан
+     * @throws ResponseStatusException 400, если у типа не указан id
+     * @throws RuntimeException если тип автомобиля не найден
+     */
+    private CarType resolveCarType(CarType carType) {
+        if (carType == null) {
+            return null;
+        }
+        Long carTypeId = requireReferenceId(carType.getId(), "carType");
+        return carTypeRepo.findById(carTypeId)
+                .orElseThrow(() -> new RuntimeException("Car type not found with id: " + carTypeId));
+    }
+
+    /**
+     * Проверяет, что у связи из тела запроса указан идентификатор.
+     *
+     * @param id идентификатор связанной сущности
+     * @param field имя поля связи для сообщения об ошибке
+     * @return тот же идентификатор
+     * @throws ResponseStatusException 400, если идентификатор не указан
+     */
+    private Long requireReferenceId(Long id, String field) {
+        if (id == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, field + ".id is required");
+        }
+        return id;
+    }
+
+    /**
+     * Публикует событие об автомобиле с его текущими водителем и типом.
+     *
+     * @param type тип события
+     * @param car автомобиль
+     */
+    private void publishCarEvent(String type, Car car) {
+        eventBroadcaster.publish(type, car.getId(),
+                car.getDriver() != null ? car.getDriver().getId() : null, null,
+                car.getCarType() != null ? car.getCarType().getId() : null);
+    }
+
+    /**
+     * Формирует ETag автомобиля из версий автомобиля, водителя и типа.
+     * Первая часть - версия самого автомобиля, она проверяется в If-Match.
+     *
+     * @param versions версии автомобиля и связанных сущностей
+     * @return ETag вида "версияАвто-версияВодителя-версияТипа"
+     */
+    private String carEtag(CarRepository.CarVersions versions) {
+        return "\"" + versions.getCarVersion() + "-" + versions.getDriverVersion()
+                + "-" + versions.getCarTypeVersion() + "\"";
+    }
+
+    /**
+     * Проверяет заголовок If-Match против текущей версии записи.
+     * Сравнивается первая часть ETag до дефиса, то есть версия самой записи.
+     * Слабые ETag (W/...) по RFC 9110 не совпадают никогда: If-Match
+     * требует строгого сравнения.
+     *
+     * @param ifMatch значение заголовка If-Match или null
+     * @param version текущая версия записи
+     * @throws ResponseStatusException с кодом 412, если ни один ETag не совпал
+     */
+    private void checkIfMatch(String ifMatch, Long version) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return;
+        }
+        for (String tag : ifMatch.split(",")) {
+            String value = tag.trim();
+            if (value.startsWith("W/")) {
+                continue;
+            }
+            value = value.replace("\"", "");
+            int dash = value.indexOf('-');
+            if (dash >= 0) {
+                value = value.substring(0, dash);
+            }
+            if (value.equals(String.valueOf(version))) {
+                return;
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                "Version " + version + " does not match If-Match: " + ifMatch);
+    }
 
     /**
-     * Преобразует объект Driver в DriverDto.
+     * Ограничивает запрошенный размер страницы допустимым диапазоном.
      *
-     * @param driver объект Driver
-     * @return объект DriverDto
+     * @param limit запрошенный размер страницы
+     * @return размер страницы от 1 до MAX_PAGE_SIZE
      */
-    private DriverDto convertToDriverDto(Driver driver) {
-        return new DriverDto(driver.getId(), driver.getName(), driver.getAge());
+    private int clampPageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
     }
 
     /**
-     * Преобразует объект Car в CarDto.
-     * Включает информацию о водителе и типе автомобиля, если они назначены.
+     * Проверяет, принимает ли клиент ответ в gzip по заголовку Accept-Encoding.
+     * Учитываются кодировки gzip и * с qvalue больше нуля; явное gzip;q=0
+     * запрещает gzip, даже если * разрешен.
      *
-     * @param car объект Car
-     * @return объект CarDto
+     * @param acceptEncoding значение заголовка Accept-Encoding или null
+     * @return true, если можно отдать gzip
      */
-    private CarDto convertToCarDto(Car car) {
-        Long driverId = car.getDriver() != null ? car.getDriver().getId() : null;
-        String driverName = car.getDriver() != null ? car.getDriver().getName() : null;
-        Long carTypeId = car.getCarType() != null ? car.getCarType().getId() : null;
-        String carTypeName = car.getCarType() != null ? car.getCarType().getName() : null;
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean gzip = null;
+        boolean wildcard = false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            boolean accepted = qvalue(parts) > 0;
+            if (name.equals("gzip")) {
+                gzip = accepted;
+            } else if (name.equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        return gzip != null ? gzip : wildcard;
+    }
 
-        return new CarDto(car.getId(), car.getBrand(), car.getModel(),
-                car.getYear(), driverId, driverName, carTypeId, carTypeName);
+    /**
+     * Возвращает qvalue кодировки из параметров заголовка, по умолчанию 1.
+     * Некорректное значение считается нулем.
+     */
+    private static double qvalue(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String param = parts[i].trim();
+            if (param.length() > 1 && (param.charAt(0) == 'q' || param.charAt(0) == 'Q')
+                    && param.substring(1).trim().startsWith("=")) {
+                try {
+                    return Double.parseDouble(param.substring(param.indexOf('=') + 1).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
     }
 
     /**
-     * Преобразует объект CarType в CarTypeDto.
+     * Проверяет, что размер пакетного запроса не превышает допустимый.
      *
-     * @param carType объект CarType
-     * @return объект CarTypeDto
+     * @param size количество записей в запросе
+     * @throws ResponseStatusException 400, если записей больше MAX_BATCH_SIZE
      */
-    private CarTypeDto convertToCarTypeDto(CarType carType) {
-        return new CarTypeDto(carType.getId(), carType.getName(), carType.getDescription());
+    private void checkBatchSize(int size) {
+        if (size > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Batch size " + size + " exceeds limit of " + MAX_BATCH_SIZE);
+        }
     }
 
+    /**
+     * Проверяет, что запрос по списку идентификаторов не содержит параметров
+     * постраничной выборки: иначе неясно, какой ответ ожидает клиент.
+     *
+     * @param limit значение параметра limit или null
+     * @param after значение параметра after или null
+     * @throws ResponseStatusException 400, если передан limit или after
+     */
+    private void checkMultiGetParams(String limit, String after) {
+        if (limit != null || after != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "ids cannot be combined with limit or after");
+        }
+    }
 
-}
\ No newline at end of file
+    /**
+     * Проверяет, что в запросе по списку идентификаторов их не больше допустимого.
+     *
+     * @param size количество идентификаторов
+     * @throws ResponseStatusException 400, если идентификаторов больше MAX_MULTI_GET_SIZE
+     */
+    private void checkMultiGetSize(int size) {
+        if (size > MAX_MULTI_GET_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Requested " + size + " ids, limit is " + MAX_MULTI_GET_SIZE);
+        }
+    }
+
+    /**
+     * Раскладывает найденные записи в порядке запрошенных идентификаторов.
+     *
+     * @param requested запрошенные идентификаторы без повторов в порядке запроса
+     * @param rows найденные записи в произвольном порядке
+     * @param idOf функция получения идентификатора записи
+     * @return записи в порядке запроса и ненайденные идентификаторы
+     */
+    private <T> MultiGetDto<T> toMultiGet(Set<Long> requested, List<T> rows, Function<T, Long> idOf) {
+        Map<Long, T> byId = rows.stream().collect(Collectors.toMap(idOf, Function.identity()));
+        List<T> items = new ArrayList<>(byId.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : requested) {
+            T row = byId.get(id);
+            if (row != null) {
+                items.add(row);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new MultiGetDto<>(items, missing);
+    }
+
+    /**
+     * Формирует результат массовой операции над автомобилями.
+     *
+     * @param driverId идентификатор водителя
+     * @param requested запрошенные идентификаторы автомобилей
+     * @param affected обновленные идентификаторы автомобилей
+     * @return результат с обновленными и не найденными идентификаторами
+     */
+    private BulkAssignmentDto toBulkAssignment(Long driverId, Set<Long> requested, List<Long> affected) {
+        Set<Long> affectedSet = new HashSet<>(affected);
+        List<Long> missing = new ArrayList<>();
+        for (Long id : requested) {
+            if (!affectedSet.contains(id)) {
+                missing.add(id);
+            }
+        }
+        return new BulkAssignmentDto(driverId, affected, missing);
+    }
+
+    /**
+     * Формирует страницу из строк, выбранных с запасом в одну строку.
+     * Наличие лишней строки означает, что следующая страница существует.
+     *
+     * @param rows строки, выбранные с лимитом pageSize + 1
+     * @param pageSize размер страницы
+     * @param idOf функция получения идентификатора элемента
+     * @return страница с курсором следующей страницы
+     */
+    private <T> CursorPageDto<T> toCursorPage(List<T> rows, int pageSize, Function<T, Long> idOf) {
+        if (rows.size() <= pageSize) {
+            return new CursorPageDto<>(rows, null);
+        }
+        List<T> items = rows.subList(0, pageSize);
+        return new CursorPageDto<>(items, idOf.apply(items.get(pageSize - 1)));
+    }
+}
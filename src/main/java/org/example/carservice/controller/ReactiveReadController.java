@@ -0,0 +1,129 @@
+package org.example.carservice.controller;
+
+import org.example.carservice.dto.CarDto;
+import org.example.carservice.dto.CarTypeDto;
+import org.example.carservice.dto.DriverDto;
+import org.example.carservice.reactive.ReactiveCarRepository;
+import org.example.carservice.reactive.ReactiveCarTypeRepository;
+import org.example.carservice.reactive.ReactiveDriverRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Контроллер только для чтения поверх R2DBC.
+ * Повторяет GET-эндпоинты MainController под префиксом /api/reactive.
+ * Включается свойством carservice.reactive.enabled=true, по умолчанию выключен.
+ *
+ * Контроллер работает в том же Spring MVC на сервлетном стеке, что и
+ * MainController, а не на event loop WebFlux: поток запроса освобождается
+ * на время ожидания базы (асинхронная обработка сервлета), но ответ пишется
+ * блокирующим выводом сервлета.
+ * Обратное давление есть только для списков с Accept: application/x-ndjson:
+ * следующая порция строк читается из базы по мере записи ответа.
+ * Для application/json Spring MVC сначала собирает весь Flux в список
+ * и сериализует его одним массивом, поэтому весь результат находится в памяти.
+ * Данные читаются написанными вручную классами поверх DatabaseClient
+ * (пакет reactive), а не репозиториями Spring Data R2DBC.
+ * Операции записи остаются в MainController.
+ */
+@RestController
+@RequestMapping("/api/reactive")
+@ConditionalOnProperty(name = "carservice.reactive.enabled", havingValue = "true")
+public class ReactiveReadController {
+
+    @Autowired
+    private ReactiveCarRepository carRepo;
+
+    @Autowired
+    private ReactiveDriverRepository driverRepo;
+
+    @Autowired
+    private ReactiveCarTypeRepository carTypeRepo;
+
+    /**
+     * Возвращает всех водителей.
+     *
+     * @return поток водителей в формате DTO
+     */
+    @GetMapping(value = "/drivers", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<DriverDto> getAllDrivers() {
+        return driverRepo.findAllDriverDtos();
+    }
+
+    /**
+     * Возвращает водителя по идентификатору.
+     *
+     * @param id идентификатор водителя
+     * @return водитель в формате DTO или 404, если не найден
+     */
+    @GetMapping("/drivers/{id}")
+    public Mono<DriverDto> getDriver(@PathVariable Long id) {
+        return driverRepo.findDriverDtoById(id)
+                .switchIfEmpty(Mono.error(() -> notFound("Driver not found with id: " + id)));
+    }
+
+    /**
+     * Возвращает автомобили указанного водителя.
+     *
+     * @param id идентификатор водителя
+     * @return поток автомобилей водителя в формате DTO
+     */
+    @GetMapping(value = "/drivers/{id}/cars", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<CarDto> getDriverCars(@PathVariable Long id) {
+        return carRepo.findCarDtosByDriverId(id);
+    }
+
+    /**
+     * Возвращает все автомобили.
+     *
+     * @return поток автомобилей в формате DTO
+     */
+    @GetMapping(value = "/cars", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<CarDto> getAllCars() {
+        return carRepo.findAllCarDtos();
+    }
+
+    /**
+     * Возвращает автомобиль по идентификатору.
+     *
+     * @param id идентификатор автомобиля
+     * @return автомобиль в формате DTO или 404, если не найден
+     */
+    @GetMapping("/cars/{id}")
+    public Mono<CarDto> getCar(@PathVariable Long id) {
+        return carRepo.findCarDtoById(id)
+                .switchIfEmpty(Mono.error(() -> notFound("Car not found with id: " + id)));
+    }
+
+    /**
+     * Возвращает все типы автомобилей.
+     *
+     * @return поток типов автомобилей в формате DTO
+     */
+    @GetMapping(value = "/car-types", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<CarTypeDto> getAllCarTypes() {
+        return carTypeRepo.findAllCarTypeDtos();
+    }
+
+    /**
+     * Возвращает тип автомобиля по идентификатору.
+     *
+     * @param id идентификатор типа автомобиля
+     * @return тип автомобиля в формате DTO или 404, если не найден
+     */
+    @GetMapping("/car-types/{id}")
+    public Mono<CarTypeDto> getCarType(@PathVariable Long id) {
+        return carTypeRepo.findCarTypeDtoById(id)
+                .switchIfEmpty(Mono.error(() -> notFound("Car type not found with id: " + id)));
+    }
+
+    private ResponseStatusException notFound(String message) {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, message);
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.carservice.dto;
+
+import java.time.Instant;
+
+/**
+ * Data Transfer Object для записи истории назначений водителя на автомобиль.
+ * Содержит прежнего и нового водителя и момент изменения.
+ */
+public class AssignmentHistoryDto {
+
+    private Long carId;
+    private Long oldDriverId;
+    private Long newDriverId;
+    private Instant changedAt;
+
+    public AssignmentHistoryDto() {}
+
+    /**
+     * Создает запись истории назначений.
+     *
+     * @param carId идентификатор автомобиля
+     * @param oldDriverId идентификатор прежнего водителя или null
+     * @param newDriverId идентификатор нового водителя или null, если водитель снят
+     * @param changedAt момент изменения
+     */
+    public AssignmentHistoryDto(Long carId, Long oldDriverId, Long newDriverId, Instant changedAt) {
+        this.carId = carId;
+        this.oldDriverId = oldDriverId;
+        this.newDriverId = newDriverId;
+        this.changedAt = changedAt;
+    }
+
+    public Long getCarId() { return carId; }
+    public void setCarId(Long carId) { this.carId = carId; }
+
+    public Long getOldDriverId() { return oldDriverId; }
+    public void setOldDriverId(Long oldDriverId) { this.oldDriverId = oldDriverId; }
+
+    public Long getNewDriverId() { return newDriverId; }
+    public void setNewDriverId(Long newDriverId) { this.newDriverId = newDriverId; }
+
+    public Instant getChangedAt() { return changedAt; }
+    public void setChangedAt(Instant changedAt) { this.changedAt = changedAt; }
+}
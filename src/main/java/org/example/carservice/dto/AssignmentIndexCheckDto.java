@@ -0,0 +1,37 @@
+package org.example.carservice.dto;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object с результатом проверки индекса назначений
+ * водителей на автомобили относительно базы данных.
+ */
+public class AssignmentIndexCheckDto {
+
+    private boolean consistent;
+    private int indexedAssignments;
+    private int databaseAssignments;
+    private List<Long> mismatchedCarIds;
+
+    public AssignmentIndexCheckDto() {}
+
+    public AssignmentIndexCheckDto(boolean consistent, int indexedAssignments, int databaseAssignments,
+                                   List<Long> mismatchedCarIds) {
+        this.consistent = consistent;
+        this.indexedAssignments = indexedAssignments;
+        this.databaseAssignments = databaseAssignments;
+        this.mismatchedCarIds = mismatchedCarIds;
+    }
+
+    public boolean isConsistent() { return consistent; }
+    public void setConsistent(boolean consistent) { this.consistent = consistent; }
+
+    public int getIndexedAssignments() { return indexedAssignments; }
+    public void setIndexedAssignments(int indexedAssignments) { this.indexedAssignments = indexedAssignments; }
+
+    public int getDatabaseAssignments() { return databaseAssignments; }
+    public void setDatabaseAssignments(int databaseAssignments) { this.databaseAssignments = databaseAssignments; }
+
+    public List<Long> getMismatchedCarIds() { return mismatchedCarIds; }
+    public void setMismatchedCarIds(List<Long> mismatchedCarIds) { this.mismatchedCarIds = mismatchedCarIds; }
+}
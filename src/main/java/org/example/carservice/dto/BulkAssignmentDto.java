@@ -0,0 +1,39 @@
+package org.example.carservice.dto;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object с результатом массового назначения или снятия водителя.
+ * Содержит идентификаторы обновленных автомобилей и идентификаторы,
+ * которые не удалось обработать.
+ */
+public class BulkAssignmentDto {
+
+    private Long driverId;
+    private List<Long> affectedIds;
+    private List<Long> missingIds;
+
+    public BulkAssignmentDto() {}
+
+    /**
+     * Создает результат массовой операции.
+     *
+     * @param driverId идентификатор водителя
+     * @param affectedIds идентификаторы обновленных автомобилей
+     * @param missingIds идентификаторы автомобилей, которые не были найдены
+     */
+    public BulkAssignmentDto(Long driverId, List<Long> affectedIds, List<Long> missingIds) {
+        this.driverId = driverId;
+        this.affectedIds = affectedIds;
+        this.missingIds = missingIds;
+    }
+
+    public Long getDriverId() { return driverId; }
+    public void setDriverId(Long driverId) { this.driverId = driverId; }
+
+    public List<Long> getAffectedIds() { return affectedIds; }
+    public void setAffectedIds(List<Long> affectedIds) { this.affectedIds = affectedIds; }
+
+    public List<Long> getMissingIds() { return missingIds; }
+    public void setMissingIds(List<Long> missingIds) { this.missingIds = missingIds; }
+}
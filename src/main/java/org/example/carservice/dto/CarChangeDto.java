@@ -0,0 +1,34 @@
+package org.example.carservice.dto;
+
+/**
+ * Data Transfer Object для измененного автомобиля в ответе GET /api/cars/changes.
+ * Дополняет CarDto номером изменения.
+ */
+public class CarChangeDto extends CarDto {
+
+    private Long modSeq;
+
+    public CarChangeDto() {}
+
+    /**
+     * Создает CarChangeDto со всеми параметрами.
+     *
+     * @param modSeq номер изменения
+     * @param id идентификатор автомобиля
+     * @param brand марка автомобиля
+     * @param model модель автомобиля
+     * @param year год выпуска
+     * @param driverId идентификатор водителя
+     * @param driverName имя водителя
+     * @param carTypeId идентификатор типа автомобиля
+     * @param carTypeName название типа автомобиля
+     */
+    public CarChangeDto(Long modSeq, Long id, String brand, String model, int year,
+                        Long driverId, String driverName, Long carTypeId, String carTypeName) {
+        super(id, brand, model, year, driverId, driverName, carTypeId, carTypeName);
+        this.modSeq = modSeq;
+    }
+
+    public Long getModSeq() { return modSeq; }
+    public void setModSeq(Long modSeq) { this.modSeq = modSeq; }
+}
@@ -0,0 +1,45 @@
+package org.example.carservice.dto;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object с изменениями автопарка после указанной отметки.
+ * Содержит созданные и измененные автомобили, идентификаторы удаленных
+ * автомобилей и новую отметку для следующего запроса.
+ */
+public class CarChangesDto {
+
+    private List<CarChangeDto> changed;
+    private List<Long> deletedIds;
+    private long watermark;
+    private boolean hasMore;
+
+    public CarChangesDto() {}
+
+    /**
+     * Создает ответ с изменениями.
+     *
+     * @param changed созданные и измененные автомобили
+     * @param deletedIds идентификаторы удаленных автомобилей
+     * @param watermark отметка, которую нужно передать в since следующего запроса
+     * @param hasMore есть ли еще изменения после watermark
+     */
+    public CarChangesDto(List<CarChangeDto> changed, List<Long> deletedIds, long watermark, boolean hasMore) {
+        this.changed = changed;
+        this.deletedIds = deletedIds;
+        this.watermark = watermark;
+        this.hasMore = hasMore;
+    }
+
+    public List<CarChangeDto> getChanged() { return changed; }
+    public void setChanged(List<CarChangeDto> changed) { this.changed = changed; }
+
+    public List<Long> getDeletedIds() { return deletedIds; }
+    public void setDeletedIds(List<Long> deletedIds) { this.deletedIds = deletedIds; }
+
+    public long getWatermark() { return watermark; }
+    public void setWatermark(long watermark) { this.watermark = watermark; }
+
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+}
@@ -0,0 +1,23 @@
+package org.example.carservice.dto;
+
+/**
+ * Data Transfer Object с ошибкой в строке импортируемого CSV-файла.
+ */
+public class CarImportErrorDto {
+
+    private long line;
+    private String message;
+
+    public CarImportErrorDto() {}
+
+    public CarImportErrorDto(long line, String message) {
+        this.line = line;
+        this.message = message;
+    }
+
+    public long getLine() { return line; }
+    public void setLine(long line) { this.line = line; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+}
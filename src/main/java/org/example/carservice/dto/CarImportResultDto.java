@@ -0,0 +1,40 @@
+package org.example.carservice.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Transfer Object с результатом импорта автомобилей из CSV.
+ * Содержит количество обработанных, добавленных, обновленных
+ * и отклоненных строк и ошибки по строкам. Список ошибок ограничен,
+ * признак errorsTruncated показывает, что ошибок было больше.
+ */
+public class CarImportResultDto {
+
+    private long processedRows;
+    private long insertedRows;
+    private long updatedRows;
+    private long rejectedRows;
+    private List<CarImportErrorDto> errors = new ArrayList<>();
+    private boolean errorsTruncated;
+
+    public CarImportResultDto() {}
+
+    public long getProcessedRows() { return processedRows; }
+    public void setProcessedRows(long processedRows) { this.processedRows = processedRows; }
+
+    public long getInsertedRows() { return insertedRows; }
+    public void setInsertedRows(long insertedRows) { this.insertedRows = insertedRows; }
+
+    public long getUpdatedRows() { return updatedRows; }
+    public void setUpdatedRows(long updatedRows) { this.updatedRows = updatedRows; }
+
+    public long getRejectedRows() { return rejectedRows; }
+    public void setRejectedRows(long rejectedRows) { this.rejectedRows = rejectedRows; }
+
+    public List<CarImportErrorDto> getErrors() { return errors; }
+    public void setErrors(List<CarImportErrorDto> errors) { this.errors = errors; }
+
+    public boolean isErrorsTruncated() { return errorsTruncated; }
+    public void setErrorsTruncated(boolean errorsTruncated) { this.errorsTruncated = errorsTruncated; }
+}
@@ -0,0 +1,35 @@
+package org.example.carservice.dto;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object для страницы при курсорной (keyset) пагинации.
+ * Содержит элементы страницы и курсор для запроса следующей страницы.
+ *
+ * @param <T> тип элементов страницы
+ */
+public class CursorPageDto<T> {
+
+    private List<T> items;
+    private Long nextCursor;
+
+    public CursorPageDto() {}
+
+    /**
+     * Создает страницу с элементами и курсором.
+     *
+     * @param items элементы страницы
+     * @param nextCursor идентификатор последнего элемента страницы
+     *                   или null, если страница последняя
+     */
+    public CursorPageDto(List<T> items, Long nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() { return items; }
+    public void setItems(List<T> items) { this.items = items; }
+
+    public Long getNextCursor() { return nextCursor; }
+    public void setNextCursor(Long nextCursor) { this.nextCursor = nextCursor; }
+}
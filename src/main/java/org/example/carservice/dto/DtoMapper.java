@@ -0,0 +1,54 @@
+package org.example.carservice.dto;
+
+import org.example.carservice.entity.Car;
+import org.example.carservice.entity.CarType;
+import org.example.carservice.entity.Driver;
+
+/**
+ * Преобразование сущностей в Data Transfer Object.
+ * Вынесено из MainController, чтобы те же преобразования использовались
+ * в снимке каталога и в JMH-бенчмарках.
+ */
+public final class DtoMapper {
+
+    private DtoMapper() {}
+
+    /**
+     * Преобразует объект Driver в DriverDto.
+     *
+     * @param driver объект Driver
+     * @return объект DriverDto
+     */
+    public static DriverDto toDriverDto(Driver driver) {
+        return new DriverDto(driver.getId(), driver.getName(), driver.getAge());
+    }
+
+    /**
+     * Преобразует объект Car в CarDto.
+     * Включает информацию о водителе и типе автомобиля, если они назначены.
+     * Каждая связь читается один раз, чтобы не обращаться к прокси Hibernate повторно.
+     *
+     * @param car объект Car
+     * @return объект CarDto
+     */
+    public static CarDto toCarDto(Car car) {
+        Driver driver = car.getDriver();
+        CarType carType = car.getCarType();
+
+        return new CarDto(car.getId(), car.getBrand(), car.getModel(), car.getYear(),
+                driver != null ? driver.getId() : null,
+                driver != null ? driver.getName() : null,
+                carType != null ? carType.getId() : null,
+                carType != null ? carType.getName() : null);
+    }
+
+    /**
+     * Преобразует объект CarType в CarTypeDto.
+     *
+     * @param carType объект CarType
+     * @return объект CarTypeDto
+     */
+    public static CarTypeDto toCarTypeDto(CarType carType) {
+        return new CarTypeDto(carType.getId(), carType.getName(), carType.getDescription());
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.carservice.dto;
+
+/**
+ * Data Transfer Object для события изменения автопарка в потоке
+ * GET /api/cars/events.
+ * Тип события: CREATED, UPDATED, DELETED, ASSIGNED или UNASSIGNED.
+ */
+public class FleetEventDto {
+
+    private long id;
+    private String type;
+    private Long carId;
+    private Long driverId;
+    private Long previousDriverId;
+    private Long carTypeId;
+
+    public FleetEventDto() {}
+
+    /**
+     * Создает событие изменения автопарка.
+     *
+     * @param id порядковый номер события
+     * @param type тип события
+     * @param carId идентификатор автомобиля
+     * @param driverId идентификатор водителя после изменения
+     * @param previousDriverId идентификатор водителя до изменения
+     * @param carTypeId идентификатор типа автомобиля
+     */
+    public FleetEventDto(long id, String type, Long carId, Long driverId, Long previousDriverId, Long carTypeId) {
+        this.id = id;
+        this.type = type;
+        this.carId = carId;
+        this.driverId = driverId;
+        this.previousDriverId = previousDriverId;
+        this.carTypeId = carTypeId;
+    }
+
+    public long getId() { return id; }
+    public void setId(long id) { this.id = id; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public Long getCarId() { return carId; }
+    public void setCarId(Long carId) { this.carId = carId; }
+
+    public Long getDriverId() { return driverId; }
+    public void setDriverId(Long driverId) { this.driverId = driverId; }
+
+    public Long getPreviousDriverId() { return previousDriverId; }
+    public void setPreviousDriverId(Long previousDriverId) { this.previousDriverId = previousDriverId; }
+
+    public Long getCarTypeId() { return carTypeId; }
+    public void setCarTypeId(Long carTypeId) { this.carTypeId = carTypeId; }
+}
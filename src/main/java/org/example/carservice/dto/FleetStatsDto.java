@@ -0,0 +1,52 @@
+package org.example.carservice.dto;
+
+import java.util.Map;
+
+/**
+ * Data Transfer Object со сводной статистикой автопарка.
+ * Содержит общее количество автомобилей, количество автомобилей без водителя,
+ * распределение по водителям, типам и годам выпуска.
+ */
+public class FleetStatsDto {
+
+    private long totalCars;
+    private long unassignedCars;
+    private Map<Long, Long> carsPerDriver;
+    private Map<Long, Long> carsPerCarType;
+    private Map<Integer, Long> carsPerYear;
+
+    public FleetStatsDto() {}
+
+    /**
+     * Создает статистику автопарка со всеми параметрами.
+     *
+     * @param totalCars общее количество автомобилей
+     * @param unassignedCars количество автомобилей без водителя
+     * @param carsPerDriver количество автомобилей по идентификатору водителя
+     * @param carsPerCarType количество автомобилей по идентификатору типа (0 - без типа)
+     * @param carsPerYear количество автомобилей по году выпуска
+     */
+    public FleetStatsDto(long totalCars, long unassignedCars, Map<Long, Long> carsPerDriver,
+                         Map<Long, Long> carsPerCarType, Map<Integer, Long> carsPerYear) {
+        this.totalCars = totalCars;
+        this.unassignedCars = unassignedCars;
+        this.carsPerDriver = carsPerDriver;
+        this.carsPerCarType = carsPerCarType;
+        this.carsPerYear = carsPerYear;
+    }
+
+    public long getTotalCars() { return totalCars; }
+    public void setTotalCars(long totalCars) { this.totalCars = totalCars; }
+
+    public long getUnassignedCars() { return unassignedCars; }
+    public void setUnassignedCars(long unassignedCars) { this.unassignedCars = unassignedCars; }
+
+    public Map<Long, Long> getCarsPerDriver() { return carsPerDriver; }
+    public void setCarsPerDriver(Map<Long, Long> carsPerDriver) { this.carsPerDriver = carsPerDriver; }
+
+    public Map<Long, Long> getCarsPerCarType() { return carsPerCarType; }
+    public void setCarsPerCarType(Map<Long, Long> carsPerCarType) { this.carsPerCarType = carsPerCarType; }
+
+    public Map<Integer, Long> getCarsPerYear() { return carsPerYear; }
+    public void setCarsPerYear(Map<Integer, Long> carsPerYear) { this.carsPerYear = carsPerYear; }
+}
@@ -0,0 +1,35 @@
+package org.example.carservice.dto;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object для ответа на запрос нескольких записей по списку
+ * идентификаторов. Содержит найденные записи в порядке запроса
+ * и идентификаторы, которые не были найдены.
+ *
+ * @param <T> тип записей
+ */
+public class MultiGetDto<T> {
+
+    private List<T> items;
+    private List<Long> missingIds;
+
+    public MultiGetDto() {}
+
+    /**
+     * Создает ответ с найденными записями и ненайденными идентификаторами.
+     *
+     * @param items найденные записи в порядке запроса
+     * @param missingIds идентификаторы, которые не были найдены
+     */
+    public MultiGetDto(List<T> items, List<Long> missingIds) {
+        this.items = items;
+        this.missingIds = missingIds;
+    }
+
+    public List<T> getItems() { return items; }
+    public void setItems(List<T> items) { this.items = items; }
+
+    public List<Long> getMissingIds() { return missingIds; }
+    public void setMissingIds(List<Long> missingIds) { this.missingIds = missingIds; }
+}
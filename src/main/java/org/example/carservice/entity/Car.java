@@ -1,6 +1,7 @@
 package org.example.carservice.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 
 /**
  * Сущность "Автомобиль" - представляет автомобиль в системе.
@@ -12,11 +13,31 @@ public class Car {
 
     /**
      * Уникальный идентификатор автомобиля.
-     * Генерируется автоматически базой данных.
+     * Выдается из последовательности cars_seq блоками по 50 значений,
+     * что позволяет Hibernate отправлять вставки пакетами JDBC.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cars_seq")
+    @SequenceGenerator(name = "cars_seq", sequenceName = "cars_seq", allocationSize = 50)
     private Long id;
+
+    /**
+     * Версия записи для оптимистической блокировки.
+     * Увеличивается при каждом изменении автомобиля и используется как ETag.
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    /**
+     * Номер последнего изменения автомобиля в последовательности cars_mod_seq.
+     * Назначается триггером базы данных при каждой вставке и изменении,
+     * приложение его только читает (GET /api/cars/changes).
+     */
+    @Column(name = "mod_seq", insertable = false, updatable = false)
+    private Long modSeq;
+
     private String brand;
     private String model;
     private int year;
@@ -77,6 +98,14 @@ public class Car {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public Long getModSeq() {
+        return modSeq;
+    }
+
     public String getBrand() {
         return brand;
     }
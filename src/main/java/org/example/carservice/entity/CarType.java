@@ -1,6 +1,9 @@
 package org.example.carservice.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * Сущность "Тип автомобиля" - представляет категорию или класс автомобиля.
@@ -8,16 +11,28 @@ import jakarta.persistence.*;
  */
 @Entity
 @Table(name = "car_types")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "car_types")
 public class CarType {
 
     /**
      * Уникальный идентификатор типа автомобиля.
-     * Генерируется автоматически базой данных.
+     * Выдается из последовательности car_types_seq блоками по 50 значений,
+     * что позволяет Hibernate отправлять вставки пакетами JDBC.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "car_types_seq")
+    @SequenceGenerator(name = "car_types_seq", sequenceName = "car_types_seq", allocationSize = 50)
     private Long id;
 
+    /**
+     * Версия записи для оптимистической блокировки.
+     * Увеличивается при каждом изменении типа автомобиля и входит в ETag автомобилей.
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     private String name;
 
     private String description;
@@ -43,6 +58,10 @@ public class CarType {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public String getName() {
         return name;
     }
@@ -1,6 +1,9 @@
 package org.example.carservice.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -11,15 +14,28 @@ import java.util.List;
  */
 @Entity
 @Table(name = "drivers")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "drivers")
 public class Driver {
 
     /**
      * Уникальный идентификатор водителя.
-     * Генерируется автоматически базой данных.
+     * Выдается из последовательности drivers_seq блоками по 50 значений,
+     * что позволяет Hibernate отправлять вставки пакетами JDBC.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "drivers_seq")
+    @SequenceGenerator(name = "drivers_seq", sequenceName = "drivers_seq", allocationSize = 50)
     private Long id;
+
+    /**
+     * Версия записи для оптимистической блокировки.
+     * Увеличивается при каждом изменении водителя и используется как ETag.
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     private String name;
     private int age;
 
@@ -43,6 +59,9 @@ public class Driver {
     public void setId(Long id) {
         this.id = id;
     }
+    public Long getVersion() {
+        return version;
+    }
     public String getName() {
         return name;
     }
@@ -0,0 +1,40 @@
+package org.example.carservice.instrumentation;
+
+import net.ttddyy.dsproxy.ConnectionInfo;
+import net.ttddyy.dsproxy.proxy.ProxyConfig;
+import net.ttddyy.dsproxy.proxy.ResultSetProxyLogic;
+import net.ttddyy.dsproxy.proxy.ResultSetProxyLogicFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.sql.ResultSet;
+
+/**
+ * Логика прокси ResultSet, которая только считает строки.
+ * Все вызовы передаются исходному ResultSet напрямую, без слушателей
+ * и контекста вызова; после успешного next() увеличивается счетчик строк
+ * текущего запроса в SqlMetrics.
+ */
+class RowCountingResultSetProxyLogicFactory implements ResultSetProxyLogicFactory {
+
+    @Override
+    public ResultSetProxyLogic create(ResultSet resultSet, ConnectionInfo connectionInfo, ProxyConfig proxyConfig) {
+        return (method, args) -> {
+            if (method.getName().equals("getTarget")) {
+                return resultSet;
+            }
+            Object result;
+            try {
+                result = method.invoke(resultSet, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+            if (result == Boolean.TRUE && method.getName().equals("next")) {
+                SqlMetrics metrics = SqlMetrics.current();
+                if (metrics != null) {
+                    metrics.addRow();
+                }
+            }
+            return result;
+        };
+    }
+}
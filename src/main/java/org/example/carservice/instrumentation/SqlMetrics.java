@@ -0,0 +1,73 @@
+package org.example.carservice.instrumentation;
+
+import java.util.Locale;
+
+/**
+ * Счетчики работы с базой данных в рамках одного HTTP-запроса:
+ * количество JDBC-выражений, суммарное время их выполнения и число
+ * прочитанных строк.
+ * Привязываются к потоку запроса в SqlMetricsFilter и заполняются
+ * из SqlMetricsListener при выполнении выражений и из прокси ResultSet
+ * при чтении строк.
+ */
+public final class SqlMetrics {
+
+    private static final ThreadLocal<SqlMetrics> CURRENT = new ThreadLocal<>();
+
+    private long statements;
+    private long dbNanos;
+    private long rows;
+
+    /**
+     * Начинает сбор счетчиков для текущего потока.
+     *
+     * @return новые счетчики запроса
+     */
+    static SqlMetrics start() {
+        SqlMetrics metrics = new SqlMetrics();
+        CURRENT.set(metrics);
+        return metrics;
+    }
+
+    /**
+     * Возвращает счетчики текущего запроса.
+     *
+     * @return счетчики или null, если поток не обрабатывает HTTP-запрос
+     */
+    public static SqlMetrics current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Завершает сбор счетчиков для текущего потока.
+     */
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    void addStatements(long count, long nanos) {
+        statements += count;
+        dbNanos += nanos;
+    }
+
+    void addRow() {
+        rows++;
+    }
+
+    public long getStatements() { return statements; }
+
+    public long getDbNanos() { return dbNanos; }
+
+    public long getRows() { return rows; }
+
+    /**
+     * Формирует значение заголовка X-Sql-Stats.
+     *
+     * @return строка вида "statements=3;dbTimeMs=1.25;rows=10"
+     */
+    public String toHeaderValue() {
+        return "statements=" + statements
+                + ";dbTimeMs=" + String.format(Locale.ROOT, "%.2f", dbNanos / 1_000_000.0)
+                + ";rows=" + rows;
+    }
+}
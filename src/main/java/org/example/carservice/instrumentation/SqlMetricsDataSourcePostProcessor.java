@@ -0,0 +1,40 @@
+package org.example.carservice.instrumentation;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Оборачивает DataSource приложения в JDBC-прокси с SqlMetricsListener,
+ * чтобы считать выражения, время и строки для каждого запроса.
+ * Слушатель вызывается только при выполнении выражений; вызовы методов
+ * Connection и Statement не перехватываются, а у ResultSet перехватывается
+ * только next() для подсчета строк.
+ */
+@Component
+public class SqlMetricsDataSourcePostProcessor implements BeanPostProcessor {
+
+    private final long slowQueryThresholdMs;
+
+    public SqlMetricsDataSourcePostProcessor(
+            @Value("${carservice.sql.slow-query-threshold-ms:200}") long slowQueryThresholdMs) {
+        this.slowQueryThresholdMs = slowQueryThresholdMs;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource dataSource) || bean instanceof ProxyDataSource) {
+            return bean;
+        }
+        SqlMetricsListener listener = new SqlMetricsListener(slowQueryThresholdMs);
+        return ProxyDataSourceBuilder.create(dataSource)
+                .name(beanName)
+                .listener(listener)
+                .proxyResultSet(new RowCountingResultSetProxyLogicFactory())
+                .build();
+    }
+}
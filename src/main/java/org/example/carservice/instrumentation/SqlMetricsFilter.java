@@ -0,0 +1,76 @@
+package org.example.carservice.instrumentation;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Собирает счетчики работы с базой данных для каждого запроса к API
+ * и публикует их в Micrometer с тегом обработчика MainController:
+ * carservice.request.sql.statements, carservice.request.db.time
+ * и carservice.request.rows.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SqlMetricsFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        SqlMetrics metrics = SqlMetrics.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SqlMetrics.clear();
+            record(handlerName(request), metrics);
+        }
+    }
+
+    private void record(String handler, SqlMetrics metrics) {
+        DistributionSummary.builder("carservice.request.sql.statements")
+                .tag("handler", handler)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(metrics.getStatements());
+        Timer.builder("carservice.request.db.time")
+                .tag("handler", handler)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(metrics.getDbNanos(), TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("carservice.request.rows")
+                .tag("handler", handler)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(metrics.getRows());
+    }
+
+    private String handlerName(HttpServletRequest request) {
+        Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (handler instanceof HandlerMethod handlerMethod) {
+            return handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName();
+        }
+        return "unmatched";
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.carservice.instrumentation;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Добавляет к ответу заголовок X-Sql-Stats со счетчиками работы
+ * с базой данных, накопленными к моменту записи тела ответа.
+ * Включается настройкой carservice.sql.metrics.header-enabled.
+ */
+@ControllerAdvice
+@ConditionalOnProperty(name = "carservice.sql.metrics.header-enabled", havingValue = "true")
+public class SqlMetricsHeaderAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final String HEADER = "X-Sql-Stats";
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        SqlMetrics metrics = SqlMetrics.current();
+        if (metrics != null) {
+            response.getHeaders().set(HEADER, metrics.toHeaderValue());
+        }
+        return body;
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.carservice.instrumentation;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Слушатель JDBC-прокси над DataSource.
+ * Считает выражения и время их выполнения для текущего запроса и пишет
+ * в лог только выражения, которые выполнялись дольше порога, вместо
+ * вывода каждого SQL через spring.jpa.show-sql.
+ */
+public class SqlMetricsListener implements QueryExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger("org.example.carservice.SlowQuery");
+
+    private static final String START_NANOS = "startNanos";
+
+    private final long slowQueryThresholdNanos;
+
+    public SqlMetricsListener(long slowQueryThresholdMs) {
+        this.slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryThresholdMs);
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        execInfo.addCustomValue(START_NANOS, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Long start = execInfo.getCustomValue(START_NANOS, Long.class);
+        long elapsed = start != null ? System.nanoTime() - start : 0;
+
+        SqlMetrics metrics = SqlMetrics.current();
+        if (metrics != null) {
+            metrics.addStatements(Math.max(1, execInfo.getBatchSize()), elapsed);
+        }
+        if (elapsed >= slowQueryThresholdNanos) {
+            log.warn("Slow query ({} ms, batch size {}): {}", TimeUnit.NANOSECONDS.toMillis(elapsed),
+                    execInfo.getBatchSize(), queryInfoList.get(0).getQuery());
+        }
+    }
+}
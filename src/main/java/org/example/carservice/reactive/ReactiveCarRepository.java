@@ -0,0 +1,75 @@
+package org.example.carservice.reactive;
+
+import io.r2dbc.spi.Row;
+import org.example.carservice.dto.CarDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Реактивное чтение автомобилей через R2DBC.
+ * Написанный вручную класс с SQL поверх DatabaseClient, а не репозиторий
+ * Spring Data R2DBC.
+ * Повторяет запросы чтения CarRepository: строит CarDto одним запросом
+ * с left join водителя и типа и отдает строки потоком по мере запроса.
+ */
+@Repository
+@ConditionalOnProperty(name = "carservice.reactive.enabled", havingValue = "true")
+public class ReactiveCarRepository {
+
+    private static final String SELECT_CAR_DTO =
+            "SELECT c.id, c.brand, c.model, c.year, " +
+            "d.id AS driver_id, d.name AS driver_name, t.id AS car_type_id, t.name AS car_type_name " +
+            "FROM cars c LEFT JOIN drivers d ON d.id = c.driver_id " +
+            "LEFT JOIN car_types t ON t.id = c.car_type_id ";
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    /**
+     * Возвращает все автомобили в формате DTO.
+     *
+     * @return поток автомобилей, упорядоченный по идентификатору
+     */
+    public Flux<CarDto> findAllCarDtos() {
+        return databaseClient.sql(SELECT_CAR_DTO + "ORDER BY c.id")
+                .map((row, metadata) -> toCarDto(row))
+                .all();
+    }
+
+    /**
+     * Возвращает автомобиль по идентификатору в формате DTO.
+     *
+     * @param id идентификатор автомобиля
+     * @return автомобиль или пустой результат, если не найден
+     */
+    public Mono<CarDto> findCarDtoById(Long id) {
+        return databaseClient.sql(SELECT_CAR_DTO + "WHERE c.id = :id")
+                .bind("id", id)
+                .map((row, metadata) -> toCarDto(row))
+                .one();
+    }
+
+    /**
+     * Возвращает автомобили указанного водителя в формате DTO.
+     *
+     * @param driverId идентификатор водителя
+     * @return поток автомобилей водителя, упорядоченный по идентификатору
+     */
+    public Flux<CarDto> findCarDtosByDriverId(Long driverId) {
+        return databaseClient.sql(SELECT_CAR_DTO + "WHERE c.driver_id = :driverId ORDER BY c.id")
+                .bind("driverId", driverId)
+                .map((row, metadata) -> toCarDto(row))
+                .all();
+    }
+
+    private CarDto toCarDto(Row row) {
+        return new CarDto(row.get("id", Long.class), row.get("brand", String.class),
+                row.get("model", String.class), row.get("year", Integer.class),
+                row.get("driver_id", Long.class), row.get("driver_name", String.class),
+                row.get("car_type_id", Long.class), row.get("car_type_name", String.class));
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.carservice.reactive;
+
+import io.r2dbc.spi.Row;
+import org.example.carservice.dto.CarTypeDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Реактивное чтение типов автомобилей через R2DBC.
+ * Написанный вручную класс с SQL поверх DatabaseClient, а не репозиторий
+ * Spring Data R2DBC.
+ */
+@Repository
+@ConditionalOnProperty(name = "carservice.reactive.enabled", havingValue = "true")
+public class ReactiveCarTypeRepository {
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    /**
+     * Возвращает все типы автомобилей в формате DTO.
+     *
+     * @return поток типов автомобилей, упорядоченный по идентификатору
+     */
+    public Flux<CarTypeDto> findAllCarTypeDtos() {
+        return databaseClient.sql("SELECT id, name, description FROM car_types ORDER BY id")
+                .map((row, metadata) -> toCarTypeDto(row))
+                .all();
+    }
+
+    /**
+     * Возвращает тип автомобиля по идентификатору в формате DTO.
+     *
+     * @param id идентификатор типа автомобиля
+     * @return тип автомобиля или пустой результат, если не найден
+     */
+    public Mono<CarTypeDto> findCarTypeDtoById(Long id) {
+        return databaseClient.sql("SELECT id, name, description FROM car_types WHERE id = :id")
+                .bind("id", id)
+                .map((row, metadata) -> toCarTypeDto(row))
+                .one();
+    }
+
+    private CarTypeDto toCarTypeDto(Row row) {
+        return new CarTypeDto(row.get("id", Long.class), row.get("name", String.class),
+                row.get("description", String.class));
+    }
+}
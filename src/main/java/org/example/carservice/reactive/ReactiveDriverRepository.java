@@ -0,0 +1,52 @@
+package org.example.carservice.reactive;
+
+import io.r2dbc.spi.Row;
+import org.example.carservice.dto.DriverDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Реактивное чтение водителей через R2DBC.
+ * Написанный вручную класс с SQL поверх DatabaseClient, а не репозиторий
+ * Spring Data R2DBC.
+ */
+@Repository
+@ConditionalOnProperty(name = "carservice.reactive.enabled", havingValue = "true")
+public class ReactiveDriverRepository {
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    /**
+     * Возвращает всех водителей в формате DTO.
+     *
+     * @return поток водителей, упорядоченный по идентификатору
+     */
+    public Flux<DriverDto> findAllDriverDtos() {
+        return databaseClient.sql("SELECT id, name, age FROM drivers ORDER BY id")
+                .map((row, metadata) -> toDriverDto(row))
+                .all();
+    }
+
+    /**
+     * Возвращает водителя по идентификатору в формате DTO.
+     *
+     * @param id идентификатор водителя
+     * @return водитель или пустой результат, если не найден
+     */
+    public Mono<DriverDto> findDriverDtoById(Long id) {
+        return databaseClient.sql("SELECT id, name, age FROM drivers WHERE id = :id")
+                .bind("id", id)
+                .map((row, metadata) -> toDriverDto(row))
+                .one();
+    }
+
+    private DriverDto toDriverDto(Row row) {
+        return new DriverDto(row.get("id", Long.class), row.get("name", String.class),
+                row.get("age", Integer.class));
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.carservice.repository;
+
+import org.example.carservice.dto.AssignmentHistoryDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Репозиторий истории назначений водителей на автомобили.
+ * Работает через JdbcTemplate: записи только добавляются пакетами
+ * и читаются по автомобилю, сущность JPA для них не нужна.
+ */
+@Repository
+public class AssignmentHistoryRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Добавляет записи истории одним пакетом JDBC.
+     *
+     * @param entries записи истории
+     */
+    public void insertAll(List<AssignmentHistoryDto> entries) {
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO car_assignment_history (car_id, old_driver_id, new_driver_id, changed_at) " +
+                "VALUES (?, ?, ?, ?)",
+                entries, entries.size(),
+                (ps, entry) -> {
+                    ps.setLong(1, entry.getCarId());
+                    ps.setObject(2, entry.getOldDriverId(), Types.BIGINT);
+                    ps.setObject(3, entry.getNewDriverId(), Types.BIGINT);
+                    ps.setTimestamp(4, Timestamp.from(entry.getChangedAt()));
+                });
+    }
+
+    /**
+     * Возвращает историю назначений автомобиля, начиная с последних изменений.
+     *
+     * @param carId идентификатор автомобиля
+     * @param limit максимальное количество записей
+     * @return записи истории
+     */
+    public List<AssignmentHistoryDto> findByCarId(Long carId, int limit) {
+        return jdbcTemplate.query(
+                "SELECT car_id, old_driver_id, new_driver_id, changed_at FROM car_assignment_history " +
+                "WHERE car_id = ? ORDER BY changed_at DESC, id DESC LIMIT ?",
+                (rs, rowNum) -> new AssignmentHistoryDto(
+                        rs.getLong("car_id"),
+                        rs.getObject("old_driver_id", Long.class),
+                        rs.getObject("new_driver_id", Long.class),
+                        rs.getTimestamp("changed_at").toInstant()),
+                carId, limit);
+    }
+}
@@ -0,0 +1,136 @@
+package org.example.carservice.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Атомарное назначение водителей на автомобили с ограничением количества
+ * автомобилей у водителя.
+ *
+ * Назначение выполняется одним условным UPDATE: он блокирует строку
+ * автомобиля, проверяет существование водителя и его загрузку и возвращает
+ * прежнего водителя. Загрузка читается из fleet_counters (сумма шардов),
+ * которые поддерживает триггер на cars. Чтобы два одновременных назначения одному
+ * водителю не прошли проверку по одному и тому же значению счетчика,
+ * назначения одному водителю сериализуются транзакционной advisory-блокировкой
+ * по его идентификатору. Методы нужно вызывать внутри транзакции.
+ *
+ * Массовое переназначение меняет счетчики нескольких водителей сразу,
+ * а триггер блокирует строки счетчиков в порядке обхода строк cars.
+ * Поэтому перед массовым UPDATE строки счетчиков всех затронутых водителей
+ * блокируются заранее в порядке возрастания идентификатора.
+ */
+@Repository
+public class CarAssignmentRepository {
+
+    private static final String ASSIGN_DRIVER_SQL =
+            "UPDATE cars c SET driver_id = ?, version = c.version + 1 " +
+            "FROM (SELECT id, driver_id FROM cars WHERE id = ? FOR UPDATE) old " +
+            "WHERE c.id = old.id " +
+            "AND EXISTS (SELECT 1 FROM drivers d WHERE d.id = ?) " +
+            "AND (old.driver_id IS NOT DISTINCT FROM ? OR ? <= 0 OR COALESCE((" +
+            "SELECT CAST(SUM(car_count) AS BIGINT) FROM fleet_counters " +
+            "WHERE dimension = 'driver' AND bucket = ?), 0) < ?) " +
+            "RETURNING old.driver_id, c.car_type_id";
+
+    private static final String CREATE_DRIVER_COUNTERS_SQL =
+            "INSERT INTO fleet_counters (dimension, bucket, shard, car_count) " +
+            "SELECT 'driver', b, pg_backend_pid() % 16, 0 FROM unnest(?) b ORDER BY b " +
+            "ON CONFLICT (dimension, bucket, shard) DO NOTHING";
+
+    private static final String LOCK_DRIVER_COUNTERS_SQL =
+            "SELECT bucket FROM fleet_counters " +
+            "WHERE dimension = 'driver' AND shard = pg_backend_pid() % 16 AND bucket = ANY(?) " +
+            "ORDER BY bucket FOR UPDATE";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CarAssignmentRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Блокирует назначения водителю до конца текущей транзакции.
+     *
+     * @param driverId идентификатор водителя
+     */
+    public void lockDriver(Long driverId) {
+        jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)", Object.class, driverId);
+    }
+
+    /**
+     * Блокирует до конца транзакции строки счетчиков водителей в шарде
+     * текущего соединения, в порядке возрастания идентификатора водителя.
+     * Отсутствующие строки предварительно создаются с нулевым значением.
+     *
+     * @param driverIds идентификаторы водителей; null означает автомобили без водителя
+     */
+    public void lockDriverCounters(Collection<Long> driverIds) {
+        Long[] buckets = driverIds.stream()
+                .map(driverId -> driverId != null ? driverId : 0L)
+                .distinct()
+                .sorted()
+                .toArray(Long[]::new);
+        jdbcTemplate.update(CREATE_DRIVER_COUNTERS_SQL, (Object) buckets);
+        jdbcTemplate.queryForList(LOCK_DRIVER_COUNTERS_SQL, Long.class, (Object) buckets);
+    }
+
+    /**
+     * Возвращает количество автомобилей водителя по счетчикам автопарка.
+     *
+     * @param driverId идентификатор водителя
+     * @return количество автомобилей
+     */
+    public long countCars(Long driverId) {
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT CAST(COALESCE(SUM(car_count), 0) AS BIGINT) FROM fleet_counters " +
+                "WHERE dimension = 'driver' AND bucket = ?",
+                Long.class, driverId);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Назначает водителя на автомобиль, если автомобиль и водитель существуют
+     * и у водителя меньше maxCars автомобилей. Повторное назначение того же
+     * водителя ограничением не проверяется.
+     *
+     * @param carId идентификатор автомобиля
+     * @param driverId идентификатор водителя
+     * @param maxCars максимальное количество автомобилей у водителя, 0 - без ограничения
+     * @return прежний водитель и тип автомобиля или пустое значение,
+     *         если назначение не выполнено
+     */
+    public Optional<Assignment> assignDriver(Long carId, Long driverId, int maxCars) {
+        if (maxCars > 0) {
+            lockDriver(driverId);
+        }
+        List<Assignment> updated = jdbcTemplate.query(ASSIGN_DRIVER_SQL,
+                (rs, rowNum) -> new Assignment(
+                        rs.getObject(1, Long.class),
+                        rs.getObject(2, Long.class)),
+                driverId, carId, driverId, driverId, maxCars, driverId, maxCars);
+        return updated.stream().findFirst();
+    }
+
+    /**
+     * Результат назначения: прежний водитель и тип автомобиля.
+     */
+    public static final class Assignment {
+
+        private final Long previousDriverId;
+        private final Long carTypeId;
+
+        public Assignment(Long previousDriverId, Long carTypeId) {
+            this.previousDriverId = previousDriverId;
+            this.carTypeId = carTypeId;
+        }
+
+        public Long getPreviousDriverId() { return previousDriverId; }
+
+        public Long getCarTypeId() { return carTypeId; }
+    }
+}
@@ -1,16 +1,84 @@
 package org.example.carservice.repository;
 
+import org.example.carservice.dto.CarChangeDto;
+import org.example.carservice.dto.CarDto;
 import org.example.carservice.entity.Car;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Репозиторий для работы с сущностью Car.
- * Предоставляет CRUD операции для автомобилей.
+ * Предоставляет CRUD операции для автомобилей и поиск по условиям.
  */
 @Repository
-public interface CarRepository extends JpaRepository<Car, Long> {
+public interface CarRepository extends JpaRepository<Car, Long>, CarSearchRepository {
+
+    /**
+     * Версии автомобиля и связанных с ним водителя и типа.
+     * Вместе определяют представление CarDto и используются для ETag.
+     */
+    interface CarVersions {
+        Long getCarVersion();
+        Long getDriverVersion();
+        Long getCarTypeVersion();
+    }
+
+    /**
+     * Идентификатор автомобиля, его текущего водителя и типа.
+     */
+    interface CarDriver {
+        Long getId();
+        Long getDriverId();
+        Long getCarTypeId();
+    }
+
+    /**
+     * Пространство ключей advisory-блокировок незавершенных изменений cars
+     * (старшие 16 бит первого ключа), см. V10__cars_mod_seq_floor_lock_namespace.sql.
+     */
+    int MOD_SEQ_LOCK_NAMESPACE = 19795;
+
+    /**
+     * Границы ленты изменений автомобилей: наибольший номер удаленных
+     * отметок об удалении (0 - еще не удалялись), последнее значение
+     * cars_mod_seq и наименьший номер незавершенных транзакций
+     * (null, если их нет).
+     */
+    interface ChangeFeedBounds {
+        Long getPurgedModSeq();
+        Long getLastModSeq();
+        Long getInFlightFloor();
+    }
+
+    /**
+     * Отметка об удалении автомобиля из таблицы car_tombstones.
+     */
+    interface CarTombstone {
+        Long getCarId();
+        Long getModSeq();
+    }
+
+    /**
+     * Счетчик автопарка fleet_counters, просуммированный по шардам.
+     */
+    interface FleetCounter {
+        String getDimension();
+        Long getBucket();
+        Long getCarCount();
+    }
 
     /**
      * Находит все автомобили, принадлежащие указанному водителю.
@@ -19,4 +87,255 @@ public interface CarRepository extends JpaRepository<Car, Long> {
      * @return список автомобилей водителя
      */
     List<Car> findByDriverId(Long driverId);
-}
\ No newline at end of file
+
+    /**
+     * Возвращает все автомобили сразу в виде CarDto.
+     * Водитель и тип подтягиваются одним запросом через left join,
+     * без ленивой загрузки связей для каждой строки.
+     *
+     * @return список всех автомобилей в формате DTO
+     */
+    @Query("select new org.example.carservice.dto.CarDto(c.id, c.brand, c.model, c.year, " +
+            "d.id, d.name, t.id, t.name) " +
+            "from Car c left join c.driver d left join c.carType t " +
+            "order by c.id")
+    List<CarDto> findAllCarDtos();
+
+    /**
+     * Возвращает автомобили с указанными идентификаторами в виде CarDto
+     * одним запросом вместе с водителем и типом.
+     *
+     * @param ids идентификаторы автомобилей
+     * @return найденные автомобили в произвольном порядке
+     */
+    @Query("select new org.example.carservice.dto.CarDto(c.id, c.brand, c.model, c.year, " +
+            "d.id, d.name, t.id, t.name) " +
+            "from Car c left join c.driver d left join c.carType t " +
+            "where c.id in :ids")
+    List<CarDto> findCarDtosByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Возвращает автомобили указанного водителя в виде CarDto одним запросом.
+     *
+     * @param driverId идентификатор водителя
+     * @return список автомобилей водителя в формате DTO
+     */
+    @Query("select new org.example.carservice.dto.CarDto(c.id, c.brand, c.model, c.year, " +
+            "d.id, d.name, t.id, t.name) " +
+            "from Car c join c.driver d left join c.carType t " +
+            "where d.id = :driverId " +
+            "order by c.id")
+    List<CarDto> findCarDtosByDriverId(@Param("driverId") Long driverId);
+
+    /**
+     * Возвращает автомобиль по идентификатору в виде CarDto одним запросом.
+     *
+     * @param id идентификатор автомобиля
+     * @return автомобиль в формате DTO, если найден
+     */
+    @Query("select new org.example.carservice.dto.CarDto(c.id, c.brand, c.model, c.year, " +
+            "d.id, d.name, t.id, t.name) " +
+            "from Car c left join c.driver d left join c.carType t " +
+            "where c.id = :id")
+    Optional<CarDto> findCarDtoById(@Param("id") Long id);
+
+    /**
+     * Возвращает страницу автомобилей с идентификатором больше указанного.
+     * Используется для курсорной пагинации: стоимость запроса не зависит
+     * от глубины страницы, в отличие от OFFSET.
+     *
+     * @param after идентификатор последнего автомобиля предыдущей страницы
+     * @param pageable ограничение размера страницы
+     * @return автомобили в формате DTO, упорядоченные по идентификатору
+     */
+    @Query("select new org.example.carservice.dto.CarDto(c.id, c.brand, c.model, c.year, " +
+            "d.id, d.name, t.id, t.name) " +
+            "from Car c left join c.driver d left join c.carType t " +
+            "where c.id > :after " +
+            "order by c.id")
+    List<CarDto> findCarDtosAfter(@Param("after") Long after, Pageable pageable);
+
+    /**
+     * Возвращает все автомобили в формате DTO в виде потока.
+     * Строки читаются из курсора JDBC порциями по fetch size, поэтому
+     * расход памяти не зависит от размера таблицы. Должен вызываться
+     * внутри транзакции только для чтения, поток необходимо закрыть.
+     *
+     * @return поток автомобилей в формате DTO, упорядоченный по идентификатору
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new org.example.carservice.dto.CarDto(c.id, c.brand, c.model, c.year, " +
+            "d.id, d.name, t.id, t.name) " +
+            "from Car c left join c.driver d left join c.carType t " +
+            "order by c.id")
+    Stream<CarDto> streamAllCarDtos();
+
+    /**
+     * Возвращает существующие автомобили из указанного набора
+     * вместе с идентификаторами их текущих водителей и типов.
+     *
+     * @param ids проверяемые идентификаторы
+     * @return найденные автомобили и их водители
+     */
+    @Query("select c.id as id, d.id as driverId, t.id as carTypeId "
+            + "from Car c left join c.driver d left join c.carType t where c.id in :ids")
+    List<CarDriver> findCarDriversByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Блокирует существующие автомобили из указанного набора в порядке
+     * возрастания id и возвращает их текущих водителей и типы.
+     * Используется перед массовым назначением: блокировки строк берутся
+     * в одном порядке, а прежние водители не меняются до конца транзакции.
+     *
+     * @param ids идентификаторы автомобилей
+     * @return найденные автомобили и их водители
+     */
+    @Query(value = "SELECT id AS \"id\", driver_id AS \"driverId\", car_type_id AS \"carTypeId\" "
+            + "FROM cars WHERE id IN (:ids) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<CarDriver> lockCarDriversByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Возвращает все автомобили с назначенным водителем.
+     * Используется для загрузки и проверки индекса назначений.
+     *
+     * @return автомобили и их водители
+     */
+    @Query("select c.id as id, d.id as driverId, t.id as carTypeId "
+            + "from Car c join c.driver d left join c.carType t")
+    List<CarDriver> findAllAssignments();
+
+    /**
+     * Блокирует автомобили водителя из указанного набора в порядке возрастания id.
+     *
+     * @param driverId идентификатор водителя
+     * @param ids идентификаторы автомобилей
+     * @return заблокированные автомобили водителя
+     */
+    @Query(value = "SELECT id AS \"id\", driver_id AS \"driverId\", car_type_id AS \"carTypeId\" "
+            + "FROM cars WHERE driver_id = :driverId AND id IN (:ids) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<CarDriver> lockCarDriversByDriverIdAndIdIn(@Param("driverId") Long driverId,
+                                                    @Param("ids") Collection<Long> ids);
+
+    /**
+     * Назначает водителя сразу на набор автомобилей одним UPDATE.
+     * Запрос объявляет пространство cars, поэтому Hibernate сбрасывает
+     * только кэш автомобилей, а не все регионы кэша второго уровня.
+     *
+     * @param driverId идентификатор водителя
+     * @param ids идентификаторы автомобилей
+     * @return количество обновленных строк
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "cars"))
+    @Query(value = "UPDATE cars SET driver_id = :driverId, version = version + 1 WHERE id IN (:ids)", nativeQuery = true)
+    int assignDriverToCars(@Param("driverId") Long driverId, @Param("ids") Collection<Long> ids);
+
+    /**
+     * Снимает водителя с набора его автомобилей одним UPDATE.
+     * Автомобили, закрепленные за другими водителями, не изменяются.
+     * Как и assignDriverToCars, затрагивает только пространство cars.
+     *
+     * @param driverId идентификатор водителя
+     * @param ids идентификаторы автомобилей
+     * @return количество обновленных строк
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "cars"))
+    @Query(value = "UPDATE cars SET driver_id = NULL, version = version + 1 " +
+            "WHERE driver_id = :driverId AND id IN (:ids)", nativeQuery = true)
+    int unassignDriverFromCars(@Param("driverId") Long driverId, @Param("ids") Collection<Long> ids);
+
+    /**
+     * Возвращает только версии автомобиля, его водителя и типа.
+     * Используется для дешевой проверки If-None-Match без чтения всей строки.
+     *
+     * @param id идентификатор автомобиля
+     * @return версии, если автомобиль найден
+     */
+    @Query("select c.version as carVersion, d.version as driverVersion, t.version as carTypeVersion " +
+            "from Car c left join c.driver d left join c.carType t " +
+            "where c.id = :id")
+    Optional<CarVersions> findVersionsById(@Param("id") Long id);
+
+    /**
+     * Возвращает ненулевые счетчики автопарка.
+     * Счетчики поддерживаются триггером на таблице cars, поэтому запрос
+     * читает только небольшую таблицу fleet_counters и складывает ее шарды.
+     *
+     * @return счетчики по водителям, типам и годам выпуска
+     */
+    @Query(value = "SELECT dimension AS \"dimension\", bucket AS \"bucket\", CAST(SUM(car_count) AS BIGINT) AS \"carCount\" " +
+            "FROM fleet_counters GROUP BY dimension, bucket HAVING SUM(car_count) <> 0", nativeQuery = true)
+    List<FleetCounter> findFleetCounters();
+
+    /**
+     * Возвращает автомобили, созданные или измененные после указанной отметки.
+     *
+     * @param since номер изменения, после которого нужны изменения
+     * @param upTo наибольший номер изменения, который можно отдать
+     * @param pageable ограничение количества строк
+     * @return измененные автомобили, упорядоченные по номеру изменения
+     */
+    @Query("select new org.example.carservice.dto.CarChangeDto(c.modSeq, c.id, c.brand, c.model, c.year, " +
+            "d.id, d.name, t.id, t.name) " +
+            "from Car c left join c.driver d left join c.carType t " +
+            "where c.modSeq > :since and c.modSeq <= :upTo " +
+            "order by c.modSeq")
+    List<CarChangeDto> findChangesSince(@Param("since") Long since, @Param("upTo") Long upTo, Pageable pageable);
+
+    /**
+     * Возвращает отметки об удалении автомобилей после указанной отметки.
+     *
+     * @param since номер изменения, после которого нужны удаления
+     * @param upTo наибольший номер изменения, который можно отдать
+     * @param limit максимальное количество строк
+     * @return отметки об удалении, упорядоченные по номеру изменения
+     */
+    @Query(value = "SELECT car_id AS \"carId\", mod_seq AS \"modSeq\" FROM car_tombstones " +
+            "WHERE mod_seq > :since AND mod_seq <= :upTo ORDER BY mod_seq LIMIT :limit", nativeQuery = true)
+    List<CarTombstone> findTombstonesSince(@Param("since") Long since, @Param("upTo") Long upTo,
+                                           @Param("limit") int limit);
+
+    /**
+     * Возвращает границы ленты изменений одним запросом: наибольший номер
+     * удаленных по сроку хранения отметок об удалении, последнее значение
+     * cars_mod_seq и наименьший номер, который еще могут получить незавершенные
+     * транзакции, изменяющие cars (минимальный ключ их advisory-блокировок
+     * из V10__cars_mod_seq_floor_lock_namespace.sql в текущей базе).
+     * Изменения с номером выше этого значения отдавать нельзя: транзакция
+     * с меньшим номером может закоммититься позже.
+     * pg_locks читается после cars_mod_seq (подзапрос зависит от строки
+     * последовательности): транзакция, взявшая блокировку позже, получит
+     * номер больше прочитанного значения.
+     *
+     * @return границы ленты изменений
+     */
+    @Query(value = "SELECT p.max_mod_seq AS \"purgedModSeq\", s.last_value AS \"lastModSeq\", " +
+            "(SELECT MIN(CAST(l.classid AS BIGINT) % 65536 * 4294967296 " +
+            "+ (CAST(l.objid AS BIGINT) + 2147483648) % 4294967296) " +
+            "FROM pg_locks l WHERE l.locktype = 'advisory' AND l.objsubid = 2 " +
+            "AND l.database = (SELECT oid FROM pg_database WHERE datname = current_database()) " +
+            "AND CAST(l.classid AS BIGINT) / 65536 = " + MOD_SEQ_LOCK_NAMESPACE + " " +
+            "AND s.last_value IS NOT NULL) AS \"inFlightFloor\" " +
+            "FROM cars_mod_seq s CROSS JOIN car_tombstones_purge p", nativeQuery = true)
+    ChangeFeedBounds findChangeFeedBounds();
+
+    /**
+     * Удаляет отметки об удалении старше указанного момента и запоминает
+     * наибольший удаленный номер изменения.
+     *
+     * @param before момент, до которого отметки удаляются
+     * @return количество обновленных строк car_tombstones_purge
+     */
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "car_tombstones"))
+    @Query(value = "WITH purged AS (DELETE FROM car_tombstones WHERE deleted_at < :before RETURNING mod_seq) " +
+            "UPDATE car_tombstones_purge " +
+            "SET max_mod_seq = GREATEST(max_mod_seq, COALESCE((SELECT MAX(mod_seq) FROM purged), 0))",
+            nativeQuery = true)
+    int purgeTombstonesBefore(@Param("before") Instant before);
+}
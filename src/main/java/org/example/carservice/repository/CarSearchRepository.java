@@ -0,0 +1,24 @@
+package org.example.carservice.repository;
+
+import org.example.carservice.dto.CarDto;
+import org.example.carservice.entity.Car;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Дополнительные методы репозитория автомобилей для поиска по условиям.
+ */
+public interface CarSearchRepository {
+
+    /**
+     * Ищет автомобили по условию и возвращает их сразу в формате DTO.
+     * Результат упорядочен по идентификатору и ограничен по размеру.
+     *
+     * @param spec условие поиска
+     * @param after идентификатор, после которого начинается выборка
+     * @param limit максимальное количество строк
+     * @return найденные автомобили в формате DTO
+     */
+    List<CarDto> searchCarDtos(Specification<Car> spec, Long after, int limit);
+}
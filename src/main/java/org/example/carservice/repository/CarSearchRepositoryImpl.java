@@ -0,0 +1,55 @@
+package org.example.carservice.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.example.carservice.dto.CarDto;
+import org.example.carservice.entity.Car;
+import org.example.carservice.entity.CarType;
+import org.example.carservice.entity.Driver;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Реализация поиска автомобилей через Criteria API.
+ * Условие из Specification применяется к запросу, который сразу строит
+ * CarDto с left join водителя и типа, поэтому результат читается одним запросом.
+ */
+public class CarSearchRepositoryImpl implements CarSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<CarDto> searchCarDtos(Specification<Car> spec, Long after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<CarDto> query = cb.createQuery(CarDto.class);
+        Root<Car> root = query.from(Car.class);
+        Join<Car, Driver> driver = root.join("driver", JoinType.LEFT);
+        Join<Car, CarType> carType = root.join("carType", JoinType.LEFT);
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.greaterThan(root.get("id"), after));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            predicates.add(predicate);
+        }
+
+        query.select(cb.construct(CarDto.class,
+                        root.get("id"), root.get("brand"), root.get("model"), root.get("year"),
+                        driver.get("id"), driver.get("name"), carType.get("id"), carType.get("name")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.asc(root.get("id")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
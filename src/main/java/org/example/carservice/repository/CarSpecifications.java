@@ -0,0 +1,83 @@
+package org.example.carservice.repository;
+
+import org.example.carservice.entity.Car;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Набор условий поиска автомобилей для GET /api/cars/search.
+ * Условия по водителю и типу сравнивают внешний ключ напрямую,
+ * без join, чтобы использовать индексы таблицы cars.
+ */
+public final class CarSpecifications {
+
+    private CarSpecifications() {}
+
+    /**
+     * Условие на точное совпадение марки.
+     *
+     * @param brand марка автомобиля
+     * @return условие поиска
+     */
+    public static Specification<Car> hasBrand(String brand) {
+        return (root, query, cb) -> cb.equal(root.get("brand"), brand);
+    }
+
+    /**
+     * Условие на точное совпадение модели.
+     *
+     * @param model модель автомобиля
+     * @return условие поиска
+     */
+    public static Specification<Car> hasModel(String model) {
+        return (root, query, cb) -> cb.equal(root.get("model"), model);
+    }
+
+    /**
+     * Условие на год выпуска не раньше заданного.
+     *
+     * @param year минимальный год выпуска включительно
+     * @return условие поиска
+     */
+    public static Specification<Car> yearFrom(int year) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("year"), year);
+    }
+
+    /**
+     * Условие на год выпуска не позже заданного.
+     *
+     * @param year максимальный год выпуска включительно
+     * @return условие поиска
+     */
+    public static Specification<Car> yearTo(int year) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("year"), year);
+    }
+
+    /**
+     * Условие на тип автомобиля по внешнему ключу car_type_id.
+     *
+     * @param carTypeId идентификатор типа автомобиля
+     * @return условие поиска
+     */
+    public static Specification<Car> hasCarType(Long carTypeId) {
+        return (root, query, cb) -> cb.equal(root.get("carType").get("id"), carTypeId);
+    }
+
+    /**
+     * Условие на водителя по внешнему ключу driver_id.
+     *
+     * @param driverId идентификатор водителя
+     * @return условие поиска
+     */
+    public static Specification<Car> hasDriver(Long driverId) {
+        return (root, query, cb) -> cb.equal(root.get("driver").get("id"), driverId);
+    }
+
+    /**
+     * Условие на автомобили без водителя.
+     *
+     * @return условие поиска
+     */
+    public static Specification<Car> isUnassigned() {
+        return (root, query, cb) -> cb.isNull(root.get("driver"));
+    }
+}
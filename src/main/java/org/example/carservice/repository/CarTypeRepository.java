@@ -1,8 +1,13 @@
 package org.example.carservice.repository;
 
+import org.example.carservice.dto.CarTypeDto;
 import org.example.carservice.entity.CarType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.List;
 
 /**
  * Репозиторий для работы с сущностью CarType.
@@ -10,4 +15,17 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface CarTypeRepository extends JpaRepository<CarType, Long> {
-}
\ No newline at end of file
+
+    /**
+     * Возвращает страницу типов автомобилей с идентификатором больше указанного.
+     *
+     * @param after идентификатор последнего типа предыдущей страницы
+     * @param pageable ограничение размера страницы
+     * @return типы автомобилей в формате DTO, упорядоченные по идентификатору
+     */
+    @Query("select new org.example.carservice.dto.CarTypeDto(t.id, t.name, t.description) " +
+            "from CarType t " +
+            "where t.id > :after " +
+            "order by t.id")
+    List<CarTypeDto> findCarTypeDtosAfter(@Param("after") Long after, Pageable pageable);
+}
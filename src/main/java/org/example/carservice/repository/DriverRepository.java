@@ -1,8 +1,18 @@
 package org.example.carservice.repository;
 
+import org.example.carservice.dto.DriverDto;
 import org.example.carservice.entity.Driver;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
 
 /**
  * Репозиторий для работы с сущностью Driver.
@@ -10,4 +20,101 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface DriverRepository extends JpaRepository<Driver, Long> {
-}
\ No newline at end of file
+
+    /**
+     * Возвращает страницу водителей с идентификатором больше указанного.
+     *
+     * @param after идентификатор последнего водителя предыдущей страницы
+     * @param pageable ограничение размера страницы
+     * @return водители в формате DTO, упорядоченные по идентификатору
+     */
+    @Query("select new org.example.carservice.dto.DriverDto(d.id, d.name, d.age) " +
+            "from Driver d " +
+            "where d.id > :after " +
+            "order by d.id")
+    List<DriverDto> findDriverDtosAfter(@Param("after") Long after, Pageable pageable);
+
+    /**
+     * Возвращает водителей с указанными идентификаторами одним запросом.
+     *
+     * @param ids идентификаторы водителей
+     * @return найденные водители в формате DTO в произвольном порядке
+     */
+    @Query("select new org.example.carservice.dto.DriverDto(d.id, d.name, d.age) " +
+            "from Driver d " +
+            "where d.id in :ids")
+    List<DriverDto> findDriverDtosByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Максимальное количество водителей в результате поиска по имени.
+     */
+    int MAX_SEARCH_RESULTS = 50;
+
+    /**
+     * Ищет водителей по имени без учета регистра: сначала имена,
+     * начинающиеся со строки запроса, в алфавитном порядке, затем имена,
+     * содержащие ее в середине. Результат не длиннее MAX_SEARCH_RESULTS.
+     * Поиск по подстроке выполняется для запросов от трех символов,
+     * так как триграммный индекс не помогает на более коротких строках.
+     *
+     * @param query строка запроса
+     * @param limit желаемое количество результатов
+     * @return найденные водители в формате DTO
+     */
+    default List<DriverDto> searchDriverDtos(String query, int limit) {
+        String normalized = query.trim().toLowerCase(Locale.ROOT);
+        int cap = Math.min(Math.max(limit, 1), MAX_SEARCH_RESULTS);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        String escaped = normalized.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+
+        List<DriverDto> drivers = new ArrayList<>(findDriverDtosByNamePrefix(escaped + "%", PageRequest.of(0, cap)));
+        if (drivers.size() < cap && normalized.length() >= 3) {
+            drivers.addAll(findDriverDtosByNameInfix("%" + escaped + "%", escaped + "%",
+                    PageRequest.of(0, cap - drivers.size())));
+        }
+        return drivers;
+    }
+
+    /**
+     * Возвращает водителей, имя которых начинается с указанного префикса,
+     * в порядке индекса idx_drivers_name_prefix.
+     *
+     * @param prefix шаблон LIKE в нижнем регистре вида "префикс%"
+     * @param pageable ограничение количества результатов
+     * @return водители в формате DTO
+     */
+    @Query("select new org.example.carservice.dto.DriverDto(d.id, d.name, d.age) " +
+            "from Driver d " +
+            "where collate(lower(d.name) as ucs_basic) like :prefix escape '\\' " +
+            "order by collate(lower(d.name) as ucs_basic), d.id")
+    List<DriverDto> findDriverDtosByNamePrefix(@Param("prefix") String prefix, Pageable pageable);
+
+    /**
+     * Возвращает водителей, имя которых содержит подстроку, но не начинается
+     * с нее. Использует триграммный индекс idx_drivers_name_trgm.
+     *
+     * @param pattern шаблон LIKE в нижнем регистре вида "%подстрока%"
+     * @param prefix шаблон уже найденных префиксных совпадений
+     * @param pageable ограничение количества результатов
+     * @return водители в формате DTO
+     */
+    @Query("select new org.example.carservice.dto.DriverDto(d.id, d.name, d.age) " +
+            "from Driver d " +
+            "where lower(d.name) like :pattern escape '\\' " +
+            "and collate(lower(d.name) as ucs_basic) not like :prefix escape '\\' " +
+            "order by d.name, d.id")
+    List<DriverDto> findDriverDtosByNameInfix(@Param("pattern") String pattern, @Param("prefix") String prefix,
+                                              Pageable pageable);
+
+    /**
+     * Возвращает только версию водителя.
+     * Используется для дешевой проверки If-None-Match без чтения всей строки.
+     *
+     * @param id идентификатор водителя
+     * @return версия, если водитель найден
+     */
+    @Query("select d.version from Driver d where d.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+}
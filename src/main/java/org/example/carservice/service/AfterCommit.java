@@ -0,0 +1,33 @@
+package org.example.carservice.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Выполнение действия после коммита текущей транзакции.
+ * Используется для побочных эффектов записи (история, события), которые
+ * не должны срабатывать при откате.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {}
+
+    /**
+     * Выполняет действие после коммита активной транзакции
+     * или сразу, если транзакции нет.
+     *
+     * @param action действие
+     */
+    public static void run(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
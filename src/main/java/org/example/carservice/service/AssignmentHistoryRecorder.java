@@ -0,0 +1,176 @@
+package org.example.carservice.service;
+
+import org.example.carservice.dto.AssignmentHistoryDto;
+import org.example.carservice.repository.AssignmentHistoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Асинхронная запись истории назначений водителей.
+ * Обработчик запроса только кладет запись в ограниченную очередь в памяти,
+ * а фоновый поток сохраняет накопленные записи пакетами JDBC.
+ *
+ * Гарантии сохранности:
+ * - запись ставится в очередь только после коммита транзакции назначения;
+ * - при штатной остановке (stop контекста) очередь полностью сбрасывается
+ *   в базу до закрытия пула соединений; рекордер останавливается после
+ *   веб-сервера, поэтому запросы, завершающиеся во время graceful shutdown,
+ *   еще попадают в очередь, а записи, пришедшие после остановки, пишутся
+ *   в базу сразу;
+ * - при аварийном завершении процесса записи, еще не сброшенные в базу
+ *   (не более одного интервала сброса), теряются;
+ * - при переполнении очереди новые записи отбрасываются со счетчиком
+ *   и предупреждением в логе, назначение при этом не замедляется.
+ */
+@Component
+public class AssignmentHistoryRecorder implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(AssignmentHistoryRecorder.class);
+
+    /**
+     * Фаза жизненного цикла ниже фаз веб-сервера (graceful shutdown -
+     * DEFAULT_PHASE - 1024, остановка сервера - DEFAULT_PHASE - 2048):
+     * рекордер останавливается, только когда запросы уже не обрабатываются.
+     */
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    @Autowired
+    private AssignmentHistoryRepository historyRepo;
+
+    private final BlockingQueue<AssignmentHistoryDto> queue;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public AssignmentHistoryRecorder(@Value("${carservice.history.queue-capacity:10000}") int queueCapacity,
+                                     @Value("${carservice.history.batch-size:500}") int batchSize,
+                                     @Value("${carservice.history.flush-interval-ms:200}") long flushIntervalMs) {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    /**
+     * Регистрирует изменение водителя автомобиля.
+     * Внутри транзакции запись ставится в очередь только после коммита.
+     *
+     * @param carId идентификатор автомобиля
+     * @param oldDriverId идентификатор прежнего водителя или null
+     * @param newDriverId идентификатор нового водителя или null
+     */
+    public void record(Long carId, Long oldDriverId, Long newDriverId) {
+        AssignmentHistoryDto entry = new AssignmentHistoryDto(carId, oldDriverId, newDriverId, Instant.now());
+        AfterCommit.run(() -> enqueue(entry));
+    }
+
+    /**
+     * Возвращает количество записей, отброшенных из-за переполнения очереди.
+     *
+     * @return количество отброшенных записей
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private void enqueue(AssignmentHistoryDto entry) {
+        if (!running) {
+            write(List.of(entry));
+            return;
+        }
+        if (queue.offer(entry)) {
+            // Остановка могла начаться после проверки running: запись,
+            // которую уже не заберет flushRemaining, сохраняется здесь.
+            if (!running && queue.remove(entry)) {
+                write(List.of(entry));
+            }
+        } else {
+            long total = dropped.incrementAndGet();
+            log.warn("Assignment history queue is full, dropped entry for car {} (dropped total: {})",
+                    entry.getCarId(), total);
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writerThread = Thread.ofPlatform()
+                .name("assignment-history-writer")
+                .daemon()
+                .start(this::writeLoop);
+    }
+
+    /**
+     * Останавливает фоновый поток и сбрасывает остаток очереди в базу.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        writerThread.interrupt();
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushRemaining();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void writeLoop() {
+        List<AssignmentHistoryDto> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                AssignmentHistoryDto first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flushRemaining() {
+        List<AssignmentHistoryDto> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<AssignmentHistoryDto> batch) {
+        try {
+            historyRepo.insertAll(batch);
+        } catch (RuntimeException e) {
+            log.error("Failed to write {} assignment history entries", batch.size(), e);
+        }
+    }
+}
@@ -0,0 +1,468 @@
+package org.example.carservice.service;
+
+import org.example.carservice.dto.AssignmentIndexCheckDto;
+import org.example.carservice.repository.CarRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Индекс назначений водителей на автомобили в памяти.
+ * Отвечает на вопросы "какие автомобили у водителя" и "какой водитель
+ * у автомобиля" без обращения к базе данных.
+ * Все изменения, в том числе сделанные этим экземпляром сервиса,
+ * применяются из сообщений PostgreSQL NOTIFY. PostgreSQL доставляет их
+ * в порядке коммитов, поэтому две транзакции над одним автомобилем
+ * применяются в том же порядке, что и в базе. Изменение видно в индексе
+ * с задержкой доставки сообщения. После переподключения к каналу индекс
+ * перестраивается, а пока соединения нет, индекс считается не загруженным.
+ * Изменения, сделанные напрямую в базе, выявляются проверкой согласованности
+ * и устраняются перестроением.
+ * Пока индекс не загружен, {@link #isReady()} возвращает false и
+ * вызывающий код должен читать данные из базы.
+ *
+ * Назначения хранятся в примитивных коллекциях без упаковки long:
+ * идентификаторы приходят из последовательностей и положительны,
+ * поэтому 0 означает отсутствие значения.
+ */
+@Component
+public class AssignmentIndex implements DatabaseNotifications.Listener {
+
+    private static final String CHANNEL = "car_assignments";
+    private static final String CAR = "car";
+    private static final String DRIVER = "driver";
+
+    @Autowired
+    private CarRepository carRepo;
+
+    @Autowired
+    private DatabaseNotifications notifications;
+
+    private final LongLongMap driverByCar = new LongLongMap();
+
+    /**
+     * Автомобили водителя. Ключ упакован один раз на водителя,
+     * а не на каждое назначение.
+     */
+    private final Map<Long, SortedLongSet> carsByDriver = new HashMap<>();
+
+    /**
+     * Изменения, пришедшие во время перестроения. Применяются поверх
+     * загруженного снимка, чтобы не потерять коммиты, выполненные
+     * между чтением из базы и заменой индекса.
+     */
+    private List<long[]> pendingChanges;
+
+    private boolean ready;
+
+    /**
+     * Подписывается на изменения после старта приложения.
+     * Индекс загружается после подписки (см. {@link #onSubscribed()}),
+     * чтобы не пропустить изменения между загрузкой и подпиской.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        notifications.listen(CHANNEL, this);
+    }
+
+    /**
+     * Перестраивает индекс после подписки на канал, в том числе после
+     * переподключения, так как сообщения за время разрыва потеряны.
+     * Перестроение выполняется в отдельном потоке, чтобы не задерживать
+     * сообщения других каналов.
+     */
+    @Override
+    public void onSubscribed() {
+        Thread.ofVirtual().name("assignment-index-rebuild").start(this::rebuild);
+    }
+
+    /**
+     * Без соединения LISTEN изменения не применяются, поэтому до
+     * перестроения после переподключения данные читаются из базы.
+     */
+    @Override
+    public synchronized void onDisconnected() {
+        ready = false;
+    }
+
+    /**
+     * Собственные изменения тоже применяются из канала, чтобы все
+     * изменения шли в порядке коммитов.
+     */
+    @Override
+    public boolean receivesOwnMessages() {
+        return true;
+    }
+
+    /**
+     * Применяет изменение: "car|автомобиль|водитель" или "driver|водитель".
+     *
+     * @param message текст сообщения
+     */
+    @Override
+    public void onMessage(String message) {
+        String[] parts = message.split("\\|", -1);
+        if (parts.length == 3 && CAR.equals(parts[0])) {
+            apply(Long.parseLong(parts[1]), parts[2].isEmpty() ? 0 : Long.parseLong(parts[2]));
+        } else if (parts.length == 2 && DRIVER.equals(parts[0])) {
+            applyDriverRemoval(Long.parseLong(parts[1]));
+        }
+    }
+
+    /**
+     * Проверяет, загружен ли индекс.
+     *
+     * @return true, если индекс можно использовать вместо базы
+     */
+    public synchronized boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Возвращает идентификаторы автомобилей водителя по возрастанию.
+     *
+     * @param driverId идентификатор водителя
+     * @return идентификаторы автомобилей
+     */
+    public synchronized List<Long> getCarIds(Long driverId) {
+        SortedLongSet carIds = carsByDriver.get(driverId);
+        return carIds != null ? carIds.toList() : List.of();
+    }
+
+    /**
+     * Возвращает идентификатор водителя автомобиля.
+     *
+     * @param carId идентификатор автомобиля
+     * @return идентификатор водителя или пустое значение, если водителя нет
+     */
+    public synchronized Optional<Long> getDriverId(Long carId) {
+        long driverId = driverByCar.get(carId);
+        return driverId != 0 ? Optional.of(driverId) : Optional.empty();
+    }
+
+    /**
+     * Отправляет назначение водителя на автомобиль в текущей транзакции.
+     * Индекс обновляется при доставке сообщения после коммита.
+     *
+     * @param carId идентификатор автомобиля
+     * @param driverId идентификатор водителя или null, если водитель снят
+     */
+    public void assign(Long carId, Long driverId) {
+        notifications.send(CHANNEL, List.of(carMessage(carId, driverId)));
+    }
+
+    /**
+     * Отправляет назначения нескольких автомобилей в текущей транзакции.
+     *
+     * @param carIds идентификаторы автомобилей
+     * @param driverId идентификатор водителя или null, если водитель снят
+     */
+    public void assignAll(Collection<Long> carIds, Long driverId) {
+        notifications.send(CHANNEL, carIds.stream().map(carId -> carMessage(carId, driverId)).toList());
+    }
+
+    /**
+     * Отправляет удаление автомобиля из индекса в текущей транзакции.
+     *
+     * @param carId идентификатор автомобиля
+     */
+    public void removeCar(Long carId) {
+        assign(carId, null);
+    }
+
+    /**
+     * Отправляет удаление водителя и всех его назначений в текущей транзакции.
+     *
+     * @param driverId идентификатор водителя
+     */
+    public void removeDriver(Long driverId) {
+        notifications.send(CHANNEL, List.of(DRIVER + "|" + driverId));
+    }
+
+    /**
+     * Перечитывает все назначения из базы данных и заменяет ими индекс.
+     *
+     * @return количество назначений в новом индексе
+     */
+    public int rebuild() {
+        synchronized (this) {
+            pendingChanges = new ArrayList<>();
+        }
+        LongLongMap loaded = loadAssignments();
+        synchronized (this) {
+            driverByCar.clear();
+            carsByDriver.clear();
+            for (long carId : loaded.keys()) {
+                put(carId, loaded.get(carId));
+            }
+            for (long[] change : pendingChanges) {
+                put(change[0], change[1]);
+            }
+            pendingChanges = null;
+            ready = true;
+            return driverByCar.size();
+        }
+    }
+
+    /**
+     * Сравнивает индекс с назначениями в базе данных.
+     * Назначения, изменившиеся во время проверки, могут попасть
+     * в расхождения; повторная проверка их не покажет.
+     *
+     * @return результат проверки со списком расходящихся автомобилей
+     */
+    public AssignmentIndexCheckDto check() {
+        LongLongMap expected = loadAssignments();
+        LongLongMap actual;
+        synchronized (this) {
+            actual = driverByCar.copy();
+        }
+        long[] mismatched = new long[expected.size() + actual.size()];
+        int count = 0;
+        for (long carId : expected.keys()) {
+            if (expected.get(carId) != actual.get(carId)) {
+                mismatched[count++] = carId;
+            }
+        }
+        for (long carId : actual.keys()) {
+            if (expected.get(carId) == 0) {
+                mismatched[count++] = carId;
+            }
+        }
+        Arrays.sort(mismatched, 0, count);
+        List<Long> mismatchedIds = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            mismatchedIds.add(mismatched[i]);
+        }
+        return new AssignmentIndexCheckDto(count == 0, actual.size(), expected.size(), mismatchedIds);
+    }
+
+    private LongLongMap loadAssignments() {
+        LongLongMap assignments = new LongLongMap();
+        for (CarRepository.CarDriver car : carRepo.findAllAssignments()) {
+            assignments.put(car.getId(), car.getDriverId());
+        }
+        return assignments;
+    }
+
+    private static String carMessage(Long carId, Long driverId) {
+        return CAR + "|" + carId + "|" + (driverId != null ? driverId : "");
+    }
+
+    private synchronized void applyDriverRemoval(long driverId) {
+        SortedLongSet carIds = carsByDriver.get(driverId);
+        if (carIds != null) {
+            for (long carId : carIds.toArray()) {
+                apply(carId, 0);
+            }
+        }
+    }
+
+    private synchronized void apply(long carId, long driverId) {
+        if (pendingChanges != null) {
+            pendingChanges.add(new long[] {carId, driverId});
+        }
+        put(carId, driverId);
+    }
+
+    /**
+     * Назначает водителя на автомобиль или снимает его.
+     *
+     * @param carId идентификатор автомобиля
+     * @param driverId идентификатор водителя или 0, если водитель снят
+     */
+    private void put(long carId, long driverId) {
+        long previousDriverId = driverId != 0 ? driverByCar.put(carId, driverId) : driverByCar.remove(carId);
+        if (previousDriverId != 0 && previousDriverId != driverId) {
+            SortedLongSet previousCars = carsByDriver.get(previousDriverId);
+            previousCars.remove(carId);
+            if (previousCars.isEmpty()) {
+                carsByDriver.remove(previousDriverId);
+            }
+        }
+        if (driverId != 0) {
+            carsByDriver.computeIfAbsent(driverId, id -> new SortedLongSet()).add(carId);
+        }
+    }
+
+    /**
+     * Хеш-таблица long -> long с открытой адресацией и линейным пробированием.
+     * Ключ 0 не хранится и означает пустую ячейку, значение 0 - отсутствие ключа.
+     */
+    static final class LongLongMap {
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        private long[] keys = new long[INITIAL_CAPACITY];
+        private long[] values = new long[INITIAL_CAPACITY];
+        private int size;
+
+        long get(long key) {
+            int slot = slot(key);
+            return keys[slot] != 0 ? values[slot] : 0;
+        }
+
+        /**
+         * @return прежнее значение или 0
+         */
+        long put(long key, long value) {
+            int slot = slot(key);
+            if (keys[slot] != 0) {
+                long previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            if (++size * 4 > keys.length * 3) {
+                resize(keys.length * 2);
+            }
+            return 0;
+        }
+
+        /**
+         * Удаляет ключ и сдвигает назад следующие за ним записи той же
+         * цепочки, чтобы поиск не останавливался на освободившейся ячейке.
+         *
+         * @return прежнее значение или 0
+         */
+        long remove(long key) {
+            int slot = slot(key);
+            if (keys[slot] == 0) {
+                return 0;
+            }
+            long previous = values[slot];
+            int mask = keys.length - 1;
+            int gap = slot;
+            for (int next = (slot + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+                int home = hash(keys[next]) & mask;
+                if (((next - home) & mask) >= ((next - gap) & mask)) {
+                    keys[gap] = keys[next];
+                    values[gap] = values[next];
+                    gap = next;
+                }
+            }
+            keys[gap] = 0;
+            values[gap] = 0;
+            size--;
+            return previous;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            keys = new long[INITIAL_CAPACITY];
+            values = new long[INITIAL_CAPACITY];
+            size = 0;
+        }
+
+        long[] keys() {
+            long[] result = new long[size];
+            int count = 0;
+            for (long key : keys) {
+                if (key != 0) {
+                    result[count++] = key;
+                }
+            }
+            return result;
+        }
+
+        LongLongMap copy() {
+            LongLongMap copy = new LongLongMap();
+            copy.keys = keys.clone();
+            copy.values = values.clone();
+            copy.size = size;
+            return copy;
+        }
+
+        /**
+         * @return ячейка ключа или пустая ячейка, в которую его нужно записать
+         */
+        private int slot(long key) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            keys = new long[capacity];
+            values = new long[capacity];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int slot = slot(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    /**
+     * Множество long в отсортированном массиве. У водителя немного
+     * автомобилей, а упорядоченность нужна для ответа по возрастанию.
+     */
+    static final class SortedLongSet {
+
+        private long[] values = new long[4];
+        private int size;
+
+        void add(long value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = value;
+            size++;
+        }
+
+        void remove(long value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, size - index - 1);
+                size--;
+            }
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+        List<Long> toList() {
+            List<Long> list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                list.add(values[i]);
+            }
+            return list;
+        }
+    }
+}
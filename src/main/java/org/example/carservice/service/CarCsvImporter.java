@@ -0,0 +1,419 @@
+package org.example.carservice.service;
+
+import org.example.carservice.dto.CarImportErrorDto;
+import org.example.carservice.dto.CarImportResultDto;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Импорт автомобилей из CSV через PostgreSQL COPY.
+ *
+ * Файл читается потоком: каждая строка проверяется и сразу передается
+ * в COPY FROM STDIN во временную таблицу car_import_staging, поэтому
+ * файл целиком в памяти не держится. Дальше несколькими запросами
+ * разрешаются типы по имени, отбрасываются строки с ошибками,
+ * обновляются автомобили с указанным id и добавляются остальные.
+ *
+ * Заголовок обязателен, столбцы: id (необязательный), brand, model, year,
+ * car_type (имя типа, необязательный). Строка с id обновляет существующий
+ * автомобиль, без id - создает новый. Импорт выполняется в одной транзакции.
+ * О каждом созданном и обновленном автомобиле публикуется событие
+ * {@link FleetEventBroadcaster}, как и при записи через API.
+ */
+@Component
+public class CarCsvImporter {
+
+    private static final String STAGING_DDL =
+            "CREATE TEMP TABLE car_import_staging (" +
+            "line_no BIGINT NOT NULL, id BIGINT, brand VARCHAR(255), model VARCHAR(255), " +
+            "year INTEGER NOT NULL, car_type VARCHAR(255), car_type_id BIGINT) ON COMMIT DROP";
+
+    private static final String COPY_SQL =
+            "COPY car_import_staging (line_no, id, brand, model, year, car_type) FROM STDIN";
+
+    /**
+     * Шаг последовательности cars_seq, совпадает с allocationSize сущности Car.
+     * Новые идентификаторы выдаются так же, как оптимизатор pooled Hibernate:
+     * значение nextval - верхняя граница блока из CARS_SEQ_INCREMENT номеров.
+     */
+    private static final int CARS_SEQ_INCREMENT = 50;
+
+    private static final int MAX_TEXT_LENGTH = 255;
+    private static final int COPY_CHUNK_SIZE = 64 * 1024;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private FleetEventBroadcaster eventBroadcaster;
+
+    @Value("${carservice.import.max-errors:1000}")
+    private int maxErrors;
+
+    /**
+     * Импортирует автомобили из CSV.
+     *
+     * @param csv содержимое файла в UTF-8
+     * @return количество обработанных строк и ошибки по строкам
+     * @throws ResponseStatusException 400, если заголовок или структура CSV некорректны
+     */
+    @Transactional
+    public CarImportResultDto importCars(InputStream csv) {
+        CarImportResultDto result = new CarImportResultDto();
+        jdbcTemplate.execute(STAGING_DDL);
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            copyToStaging(connection.unwrap(PGConnection.class), csv, result);
+            return null;
+        });
+        jdbcTemplate.execute("ANALYZE car_import_staging");
+
+        jdbcTemplate.update(
+                "UPDATE car_import_staging s SET car_type_id = t.id " +
+                "FROM (SELECT name, MIN(id) AS id FROM car_types GROUP BY name) t " +
+                "WHERE t.name = s.car_type");
+        jdbcTemplate.query(
+                "DELETE FROM car_import_staging WHERE car_type IS NOT NULL AND car_type_id IS NULL " +
+                "RETURNING line_no, car_type",
+                rs -> {
+                    reject(result, rs.getLong(1), "Car type not found with name: " + rs.getString(2));
+                });
+        jdbcTemplate.query(
+                "DELETE FROM car_import_staging s WHERE s.id IS NOT NULL " +
+                "AND NOT EXISTS (SELECT 1 FROM cars c WHERE c.id = s.id) " +
+                "RETURNING s.line_no, s.id",
+                rs -> {
+                    reject(result, rs.getLong(1), "Car not found with id: " + rs.getLong(2));
+                });
+        jdbcTemplate.query(
+                "DELETE FROM car_import_staging s USING car_import_staging later " +
+                "WHERE s.id = later.id AND s.line_no < later.line_no " +
+                "RETURNING s.line_no, s.id",
+                rs -> {
+                    reject(result, rs.getLong(1), "Car with id " + rs.getLong(2) + " is repeated later in the file");
+                });
+
+        jdbcTemplate.query(
+                "UPDATE cars c SET brand = s.brand, model = s.model, year = s.year, " +
+                "car_type_id = s.car_type_id, version = c.version + 1 " +
+                "FROM car_import_staging s WHERE s.id = c.id " +
+                "RETURNING c.id, c.driver_id, c.car_type_id",
+                rs -> {
+                    result.setUpdatedRows(result.getUpdatedRows() + 1);
+                    eventBroadcaster.publish(FleetEventBroadcaster.UPDATED, rs.getLong(1),
+                            rs.getObject(2, Long.class), null, rs.getObject(3, Long.class));
+                });
+        jdbcTemplate.query(
+                "WITH new_rows AS (" +
+                "  SELECT s.*, ROW_NUMBER() OVER (ORDER BY s.line_no) - 1 AS n " +
+                "  FROM car_import_staging s WHERE s.id IS NULL" +
+                "), blocks AS (" +
+                "  SELECT b, nextval('cars_seq') AS hi " +
+                "  FROM generate_series(0, CEIL((SELECT COUNT(*) FROM new_rows) / ?::numeric)::int - 1) AS b" +
+                ") " +
+                "INSERT INTO cars (id, version, brand, model, year, car_type_id) " +
+                "SELECT blocks.hi - ? + 1 + new_rows.n % ?, 0, new_rows.brand, new_rows.model, " +
+                "new_rows.year, new_rows.car_type_id " +
+                "FROM new_rows JOIN blocks ON blocks.b = new_rows.n / ? " +
+                "RETURNING id, car_type_id",
+                rs -> {
+                    result.setInsertedRows(result.getInsertedRows() + 1);
+                    eventBroadcaster.publish(FleetEventBroadcaster.CREATED, rs.getLong(1),
+                            null, null, rs.getObject(2, Long.class));
+                },
+                CARS_SEQ_INCREMENT, CARS_SEQ_INCREMENT, CARS_SEQ_INCREMENT, CARS_SEQ_INCREMENT);
+        return result;
+    }
+
+    /**
+     * Читает CSV, проверяет строки и передает корректные в COPY.
+     */
+    private void copyToStaging(PGConnection connection, InputStream csv, CarImportResultDto result)
+            throws SQLException {
+        CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8)));
+        Columns columns = Columns.of(reader.next());
+
+        CopyIn copy = connection.getCopyAPI().copyIn(COPY_SQL);
+        try {
+            StringBuilder chunk = new StringBuilder(COPY_CHUNK_SIZE + 1024);
+            List<String> record;
+            while ((record = reader.next()) != null) {
+                if (record.size() == 1 && record.get(0).isEmpty()) {
+                    continue;
+                }
+                result.setProcessedRows(result.getProcessedRows() + 1);
+                String error = appendRow(chunk, reader.getRecordLine(), record, columns);
+                if (error != null) {
+                    reject(result, reader.getRecordLine(), error);
+                }
+                if (chunk.length() >= COPY_CHUNK_SIZE) {
+                    writeChunk(copy, chunk);
+                }
+            }
+            writeChunk(copy, chunk);
+            copy.endCopy();
+        } finally {
+            if (copy.isActive()) {
+                copy.cancelCopy();
+            }
+        }
+    }
+
+    /**
+     * Проверяет строку и дописывает ее в буфер COPY в текстовом формате.
+     *
+     * @return текст ошибки или null, если строка добавлена
+     */
+    private static String appendRow(StringBuilder chunk, long line, List<String> record, Columns columns) {
+        if (record.size() != columns.count) {
+            return "Expected " + columns.count + " columns but found " + record.size();
+        }
+        String id = columns.get(record, columns.id);
+        String brand = columns.get(record, columns.brand);
+        String model = columns.get(record, columns.model);
+        String year = columns.get(record, columns.year);
+        String carType = columns.get(record, columns.carType);
+
+        if (id != null && !isLong(id)) {
+            return "Invalid id: " + id;
+        }
+        if (year == null || !isInt(year)) {
+            return "Invalid year: " + year;
+        }
+        for (String value : new String[] {brand, model, carType}) {
+            if (value != null && value.length() > MAX_TEXT_LENGTH) {
+                return "Value is longer than " + MAX_TEXT_LENGTH + " characters";
+            }
+        }
+
+        chunk.append(line).append('\t');
+        appendCopyValue(chunk, id).append('\t');
+        appendCopyValue(chunk, brand).append('\t');
+        appendCopyValue(chunk, model).append('\t');
+        appendCopyValue(chunk, year).append('\t');
+        appendCopyValue(chunk, carType).append('\n');
+        return null;
+    }
+
+    private static StringBuilder appendCopyValue(StringBuilder chunk, String value) {
+        if (value == null) {
+            return chunk.append("\\N");
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> chunk.append("\\\\");
+                case '\t' -> chunk.append("\\t");
+                case '\n' -> chunk.append("\\n");
+                case '\r' -> chunk.append("\\r");
+                default -> chunk.append(c);
+            }
+        }
+        return chunk;
+    }
+
+    private static void writeChunk(CopyIn copy, StringBuilder chunk) throws SQLException {
+        if (chunk.length() > 0) {
+            byte[] bytes = chunk.toString().getBytes(StandardCharsets.UTF_8);
+            copy.writeToCopy(bytes, 0, bytes.length);
+            chunk.setLength(0);
+        }
+    }
+
+    private void reject(CarImportResultDto result, long line, String message) {
+        result.setRejectedRows(result.getRejectedRows() + 1);
+        if (result.getErrors().size() < maxErrors) {
+            result.getErrors().add(new CarImportErrorDto(line, message));
+        } else {
+            result.setErrorsTruncated(true);
+        }
+    }
+
+    private static boolean isLong(String value) {
+        try {
+            Long.parseLong(value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static boolean isInt(String value) {
+        try {
+            Integer.parseInt(value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Позиции столбцов, найденные по заголовку CSV.
+     */
+    private static final class Columns {
+
+        private int count;
+        private int id = -1;
+        private int brand = -1;
+        private int model = -1;
+        private int year = -1;
+        private int carType = -1;
+
+        private static Columns of(List<String> header) {
+            if (header == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CSV header is missing");
+            }
+            Columns columns = new Columns();
+            columns.count = header.size();
+            for (int i = 0; i < header.size(); i++) {
+                String name = header.get(i).trim().toLowerCase(Locale.ROOT);
+                switch (name) {
+                    case "id" -> columns.id = i;
+                    case "brand" -> columns.brand = i;
+                    case "model" -> columns.model = i;
+                    case "year" -> columns.year = i;
+                    case "car_type" -> columns.carType = i;
+                    default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "Unknown CSV column: " + header.get(i));
+                }
+            }
+            if (columns.year < 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CSV column year is required");
+            }
+            return columns;
+        }
+
+        /**
+         * Возвращает значение столбца или null, если столбца нет или значение пустое.
+         */
+        private String get(List<String> record, int index) {
+            if (index < 0) {
+                return null;
+            }
+            String value = record.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+    }
+
+    /**
+     * Потоковый разбор CSV по RFC 4180: поля в кавычках могут содержать
+     * разделители, переводы строк и удвоенные кавычки.
+     */
+    private static final class CsvReader {
+
+        private static final int MAX_RECORD_LENGTH = 64 * 1024;
+
+        private final Reader in;
+        private final StringBuilder field = new StringBuilder();
+        private long line = 1;
+        private long recordLine;
+        private int pushedBack = -2;
+
+        private CsvReader(Reader in) {
+            this.in = in;
+        }
+
+        /**
+         * Номер строки файла, с которой начинается последняя прочитанная запись.
+         */
+        private long getRecordLine() {
+            return recordLine;
+        }
+
+        /**
+         * Читает следующую запись.
+         *
+         * @return значения полей или null в конце файла
+         */
+        private List<String> next() {
+            int c = read();
+            if (c == -1) {
+                return null;
+            }
+            recordLine = line;
+            List<String> record = new ArrayList<>();
+            int recordLength = 0;
+            boolean quoted = false;
+            field.setLength(0);
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                "Unterminated quoted field starting on line " + recordLine);
+                    }
+                    if (c == '"') {
+                        int following = read();
+                        if (following == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            c = following;
+                            continue;
+                        }
+                    } else {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    record.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == '\r' || c == -1) {
+                    if (c == '\r') {
+                        int following = read();
+                        if (following != '\n') {
+                            pushedBack = following;
+                        }
+                    }
+                    if (c != -1) {
+                        line++;
+                    }
+                    record.add(field.toString());
+                    return record;
+                } else {
+                    field.append((char) c);
+                }
+                if (++recordLength > MAX_RECORD_LENGTH) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "CSV record on line " + recordLine + " is longer than " + MAX_RECORD_LENGTH + " characters");
+                }
+                c = read();
+            }
+        }
+
+        private int read() {
+            if (pushedBack != -2) {
+                int c = pushedBack;
+                pushedBack = -2;
+                return c;
+            }
+            try {
+                return in.read();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
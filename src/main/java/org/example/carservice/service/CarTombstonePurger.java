@@ -0,0 +1,59 @@
+package org.example.carservice.service;
+
+import jakarta.annotation.PreDestroy;
+import org.example.carservice.repository.CarRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Периодически удаляет отметки об удалении автомобилей (car_tombstones)
+ * старше срока хранения, чтобы таблица не росла бесконечно.
+ * Клиент GET /api/cars/changes, чья отметка старше удаленных записей,
+ * получает 410 и загружает автопарк заново.
+ * Несколько экземпляров сервиса могут выполнять очистку одновременно:
+ * повторное удаление ничего не меняет.
+ */
+@Component
+public class CarTombstonePurger {
+
+    private static final Logger log = LoggerFactory.getLogger(CarTombstonePurger.class);
+
+    @Autowired
+    private CarRepository carRepo;
+
+    private final Duration retention;
+    private final ScheduledExecutorService scheduler;
+
+    public CarTombstonePurger(@Value("${carservice.changes.tombstone-retention-hours:168}") long retentionHours,
+                              @Value("${carservice.changes.purge-interval-minutes:60}") long intervalMinutes) {
+        this.retention = Duration.ofHours(retentionHours);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("car-tombstone-purger").daemon().factory());
+        this.scheduler.scheduleWithFixedDelay(this::purge, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Удаляет отметки об удалении старше срока хранения.
+     */
+    void purge() {
+        try {
+            carRepo.purgeTombstonesBefore(Instant.now().minus(retention));
+        } catch (RuntimeException e) {
+            log.warn("Failed to purge car tombstones", e);
+        }
+    }
+}
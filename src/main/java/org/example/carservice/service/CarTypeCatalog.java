@@ -0,0 +1,127 @@
+package org.example.carservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.carservice.dto.CarTypeDto;
+import org.example.carservice.dto.DtoMapper;
+import org.example.carservice.repository.CarTypeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Снимок каталога типов автомобилей в памяти.
+ * Хранит заранее сериализованный JSON, его gzip-вариант и ETag,
+ * чтобы GET /api/car-types не обращался к базе данных и не запускал Jackson
+ * на каждый запрос. Снимок перестраивается после любого изменения типов.
+ */
+@Component
+public class CarTypeCatalog {
+
+    @Autowired
+    private CarTypeRepository carTypeRepo;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Номер версии каталога, увеличивается при каждом изменении типов.
+     * Позволяет не сохранять снимок, построенный до изменения.
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * Возвращает актуальный снимок каталога, строя его при необходимости.
+     *
+     * @return снимок каталога типов автомобилей
+     */
+    public Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current == null) {
+                long builtVersion = version.get();
+                current = build();
+                if (version.get() == builtVersion) {
+                    snapshot = current;
+                }
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Сбрасывает снимок после изменения типов автомобилей.
+     * Новый снимок будет построен при следующем запросе.
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+        snapshot = null;
+    }
+
+    /**
+     * Читает все типы автомобилей и сериализует их в JSON и gzip.
+     *
+     * @return новый снимок каталога
+     */
+    private Snapshot build() {
+        List<CarTypeDto> carTypes = carTypeRepo.findAll().stream()
+                .map(DtoMapper::toCarTypeDto)
+                .collect(Collectors.toList());
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(carTypes);
+            return new Snapshot(json, gzip(json), DigestUtils.md5DigestAsHex(json));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize car type catalog", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Неизменяемый снимок каталога: JSON, gzip-вариант и их ETag.
+     */
+    public static final class Snapshot {
+
+        private final byte[] json;
+        private final byte[] gzipJson;
+        private final String etag;
+        private final String gzipEtag;
+
+        private Snapshot(byte[] json, byte[] gzipJson, String hash) {
+            this.json = json;
+            this.gzipJson = gzipJson;
+            this.etag = "\"" + hash + "\"";
+            this.gzipEtag = "\"" + hash + "-gzip\"";
+        }
+
+        public byte[] getJson() { return json; }
+
+        public byte[] getGzipJson() { return gzipJson; }
+
+        public String getEtag() { return etag; }
+
+        public String getGzipEtag() { return gzipEtag; }
+    }
+}
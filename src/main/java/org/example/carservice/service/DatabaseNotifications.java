@@ -0,0 +1,225 @@
+package org.example.carservice.service;
+
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Обмен сообщениями между экземплярами сервиса через PostgreSQL NOTIFY/LISTEN.
+ * Все каналы слушаются одним фоновым потоком на отдельном соединении.
+ * Сообщение имеет вид "узел|текст"; собственные сообщения узла
+ * передаются только получателям, которые их запрашивают.
+ */
+@Component
+public class DatabaseNotifications {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseNotifications.class);
+
+    private static final String NOTIFY_ALL_SQL = "SELECT pg_notify(?, ? || '|' || m) FROM unnest(?) m";
+    private static final int POLL_TIMEOUT_MS = 500;
+    private static final long RECONNECT_DELAY_MS = 5000;
+
+    /**
+     * Идентификатор текущего узла, чтобы не обрабатывать собственные сообщения.
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<String, Listener> listeners = new ConcurrentHashMap<>();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${spring.datasource.url}")
+    private String url;
+
+    @Value("${spring.datasource.username}")
+    private String username;
+
+    @Value("${spring.datasource.password}")
+    private String password;
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    /**
+     * Получатель сообщений одного канала.
+     */
+    public interface Listener {
+
+        /**
+         * Обрабатывает сообщение другого узла, а если получатель их
+         * запрашивает, и собственное.
+         *
+         * @param message текст сообщения без идентификатора узла
+         */
+        void onMessage(String message);
+
+        /**
+         * Вызывается после подписки на канал, в том числе после
+         * переподключения: сообщения за время разрыва потеряны.
+         */
+        void onSubscribed();
+
+        /**
+         * Вызывается при потере соединения LISTEN, до переподключения.
+         */
+        default void onDisconnected() {
+        }
+
+        /**
+         * Нужны ли получателю сообщения собственного узла. Они приходят,
+         * как и чужие, в порядке коммитов отправивших их транзакций.
+         *
+         * @return true, если собственные сообщения тоже передаются
+         */
+        default boolean receivesOwnMessages() {
+            return false;
+        }
+    }
+
+    /**
+     * Подписывает получателя на канал и при первой подписке запускает поток LISTEN.
+     * Подписка вступает в силу в течение интервала опроса.
+     *
+     * @param channel имя канала
+     * @param listener получатель сообщений
+     */
+    public synchronized void listen(String channel, Listener listener) {
+        listeners.put(channel, listener);
+        if (listenerThread == null) {
+            running = true;
+            listenerThread = Thread.ofPlatform()
+                    .name("db-notification-listener")
+                    .daemon()
+                    .start(this::listen);
+        }
+    }
+
+    /**
+     * Останавливает поток LISTEN.
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    /**
+     * Отправляет сообщения в канал в текущей транзакции. PostgreSQL доставляет
+     * их только после коммита и в порядке коммитов, при откате они отбрасываются.
+     * Без транзакции сообщения отправляются сразу.
+     *
+     * @param channel имя канала
+     * @param messages тексты сообщений
+     */
+    public void send(String channel, List<String> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.query(NOTIFY_ALL_SQL, (RowCallbackHandler) rs -> {},
+                channel, nodeId, messages.toArray(new String[0]));
+    }
+
+    /**
+     * Отправляет сообщения в канал через указанное соединение, не завершая
+     * его транзакцию. Используется, когда транзакция управляется не Spring,
+     * а, например, сессией Hibernate.
+     *
+     * @param connection соединение транзакции
+     * @param channel имя канала
+     * @param messages тексты сообщений
+     * @throws SQLException если сообщения не отправлены
+     */
+    public void send(Connection connection, String channel, List<String> messages) throws SQLException {
+        if (messages.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(NOTIFY_ALL_SQL)) {
+            statement.setString(1, channel);
+            statement.setString(2, nodeId);
+            statement.setArray(3, connection.createArrayOf("text", messages.toArray()));
+            statement.execute();
+        }
+    }
+
+    /**
+     * Цикл потока LISTEN. Подписывается на новые каналы по мере их регистрации,
+     * при потере соединения переподключается и подписывается заново.
+     */
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, username, password);
+                 Statement statement = connection.createStatement()) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                Set<String> subscribed = new HashSet<>();
+                while (running) {
+                    for (Map.Entry<String, Listener> entry : listeners.entrySet()) {
+                        if (subscribed.add(entry.getKey())) {
+                            statement.execute("LISTEN " + entry.getKey());
+                            entry.getValue().onSubscribed();
+                        }
+                    }
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification.getName(), notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Database notification listener disconnected, reconnecting", e);
+                listeners.values().forEach(Listener::onDisconnected);
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Передает сообщение получателю канала. Собственное сообщение узла
+     * передается, только если получатель его запрашивает.
+     *
+     * @param channel имя канала
+     * @param payload текст сообщения вида "узел|текст"
+     */
+    private void dispatch(String channel, String payload) {
+        Listener listener = listeners.get(channel);
+        String[] parts = payload.split("\\|", 2);
+        if (listener == null || parts.length != 2
+                || (nodeId.equals(parts[0]) && !listener.receivesOwnMessages())) {
+            return;
+        }
+        try {
+            listener.onMessage(parts[1]);
+        } catch (RuntimeException e) {
+            log.warn("Failed to handle notification on {}: {}", channel, payload, e);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package org.example.carservice.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.carservice.entity.CarType;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Поддерживает согласованность локального кэша второго уровня Hibernate
+ * между несколькими экземплярами сервиса.
+ * Изменения кэшируемых сущностей транзакции отправляются одним NOTIFY через
+ * соединение самой транзакции непосредственно перед коммитом: PostgreSQL
+ * доставляет их только после коммита, а отдельное соединение из пула не
+ * занимается. Сообщения других узлов приходят через {@link DatabaseNotifications},
+ * и измененные записи удаляются из локального кэша.
+ */
+@Component
+public class EntityCacheInvalidator implements PostInsertEventListener,
+        PostUpdateEventListener, PostDeleteEventListener, DatabaseNotifications.Listener {
+
+    private static final String CHANNEL = "entity_cache_invalidation";
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DatabaseNotifications notifications;
+
+    @Autowired
+    private CarTypeCatalog carTypeCatalog;
+
+    @Value("${carservice.cache.invalidation.enabled:true}")
+    private boolean enabled;
+
+    private SessionFactoryImplementor sessionFactory;
+
+    /**
+     * Регистрирует обработчики событий Hibernate и подписывается на канал.
+     */
+    @PostConstruct
+    public void start() {
+        sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        if (!enabled) {
+            return;
+        }
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+        notifications.listen(CHANNEL, this);
+    }
+
+    /**
+     * Новая запись не может устареть в кэше другого узла, поэтому о вставках
+     * сообщается только для типов автомобилей: от них зависит снимок каталога.
+     */
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (CarType.class.getName().equals(event.getPersister().getEntityName())) {
+            publish(event.getSession(), event.getPersister(), event.getId());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        publish(event.getSession(), event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        publish(event.getSession(), event.getPersister(), event.getId());
+    }
+
+    /**
+     * Сообщения отправляются до коммита, обработка после коммита не нужна.
+     */
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * Удаляет из локального кэша сущность, измененную другим узлом.
+     *
+     * @param message сообщение вида "сущность|идентификатор"
+     */
+    @Override
+    public void onMessage(String message) {
+        String[] parts = message.split("\\|", 2);
+        if (parts.length != 2) {
+            return;
+        }
+        String entityName = parts[0];
+        sessionFactory.getCache().evictEntityData(entityName, Long.valueOf(parts[1]));
+        if (CarType.class.getName().equals(entityName)) {
+            carTypeCatalog.invalidate();
+        }
+    }
+
+    /**
+     * После подписки, в том числе после переподключения, очищает локальный
+     * кэш, так как сообщения за время разрыва потеряны.
+     */
+    @Override
+    public void onSubscribed() {
+        sessionFactory.getCache().evictAllRegions();
+        carTypeCatalog.invalidate();
+    }
+
+    /**
+     * Добавляет сообщение об изменении сущности к сообщениям транзакции.
+     * Изменения выполняются при flush, в том числе внутри коммита Hibernate,
+     * когда beforeCommit транзакции Spring уже отработал. Поэтому отправка
+     * регистрируется в сессии Hibernate и выполняется перед коммитом
+     * соединения, после последнего flush.
+     *
+     * @param session сессия, в которой изменена сущность
+     * @param persister описание сущности
+     * @param id идентификатор сущности
+     */
+    private void publish(EventSource session, EntityPersister persister, Object id) {
+        if (persister.canWriteToCache()) {
+            transactionMessages(session).add(persister.getEntityName() + "|" + id);
+        }
+    }
+
+    /**
+     * Возвращает сообщения текущей транзакции. При первом сообщении
+     * регистрирует их отправку перед коммитом соединения сессии.
+     */
+    @SuppressWarnings("unchecked")
+    private List<String> transactionMessages(EventSource session) {
+        boolean synchronizationActive = TransactionSynchronizationManager.isSynchronizationActive();
+        if (synchronizationActive) {
+            List<String> messages = (List<String>) TransactionSynchronizationManager.getResource(this);
+            if (messages != null) {
+                return messages;
+            }
+        }
+        List<String> created = new ArrayList<>();
+        session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) completing ->
+                completing.doWork(connection -> notifications.send(connection, CHANNEL, created)));
+        if (synchronizationActive) {
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResource(EntityCacheInvalidator.this);
+                }
+            });
+        }
+        return created;
+    }
+}
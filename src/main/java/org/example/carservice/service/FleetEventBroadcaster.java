@@ -0,0 +1,349 @@
+package org.example.carservice.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.carservice.dto.FleetEventDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Рассылка событий изменения автопарка подписчикам Server-Sent Events.
+ * События публикуются из путей записи MainController после коммита,
+ * нумеруются по порядку и хранятся в ограниченном буфере для продолжения
+ * потока по заголовку Last-Event-ID.
+ * События передаются остальным экземплярам сервиса через PostgreSQL NOTIFY
+ * в той же транзакции, что и изменение, поэтому подписчик любого узла
+ * получает изменения, сделанные через другие узлы.
+ * Каждый подписчик получает события через собственную ограниченную очередь
+ * и отдельный виртуальный поток отправки. Подписчик, не успевающий забирать
+ * события, отключается и при переподключении продолжает поток по Last-Event-ID.
+ * Буфер и нумерация локальны для экземпляра сервиса: продолжение потока
+ * возможно только при переподключении к тому же экземпляру.
+ */
+@Component
+public class FleetEventBroadcaster implements DatabaseNotifications.Listener {
+
+    public static final String CREATED = "CREATED";
+    public static final String UPDATED = "UPDATED";
+    public static final String DELETED = "DELETED";
+    public static final String ASSIGNED = "ASSIGNED";
+    public static final String UNASSIGNED = "UNASSIGNED";
+
+    private static final String CHANNEL = "fleet_events";
+    private static final long EMITTER_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(30);
+    private static final long HEARTBEAT_INTERVAL_SECONDS = 15;
+
+    @Autowired
+    private DatabaseNotifications notifications;
+
+    private final int replayCapacity;
+    private final int subscriberQueueCapacity;
+    private final ArrayDeque<FleetEventDto> replayBuffer;
+    private final List<Subscriber> subscribers = new ArrayList<>();
+
+    private long lastEventId;
+
+    public FleetEventBroadcaster(
+            @Value("${carservice.events.replay-capacity:10000}") int replayCapacity,
+            @Value("${carservice.events.subscriber-queue-capacity:1000}") int subscriberQueueCapacity) {
+        this.replayCapacity = replayCapacity;
+        this.subscriberQueueCapacity = subscriberQueueCapacity;
+        this.replayBuffer = new ArrayDeque<>(replayCapacity);
+    }
+
+    /**
+     * Подписывается на события других узлов.
+     */
+    @PostConstruct
+    public void start() {
+        notifications.listen(CHANNEL, this);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        List<Subscriber> closing;
+        synchronized (this) {
+            closing = new ArrayList<>(subscribers);
+        }
+        for (Subscriber subscriber : closing) {
+            subscriber.close();
+            subscriber.emitter.complete();
+        }
+    }
+
+    /**
+     * Публикует событие после коммита текущей транзакции.
+     * События транзакции отправляются другим узлам одним запросом
+     * перед коммитом.
+     *
+     * @param type тип события
+     * @param carId идентификатор автомобиля
+     * @param driverId идентификатор водителя после изменения
+     * @param previousDriverId идентификатор водителя до изменения
+     * @param carTypeId идентификатор типа автомобиля
+     */
+    public void publish(String type, Long carId, Long driverId, Long previousDriverId, Long carTypeId) {
+        FleetEventDto event = new FleetEventDto(0, type, carId, driverId, previousDriverId, carTypeId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            notifications.send(CHANNEL, List.of(toMessage(event)));
+            dispatch(event);
+            return;
+        }
+        transactionEvents().add(event);
+    }
+
+    /**
+     * Рассылает событие, пришедшее с другого узла.
+     *
+     * @param message событие вида "тип|автомобиль|водитель|прежний водитель|тип автомобиля"
+     */
+    @Override
+    public void onMessage(String message) {
+        String[] parts = message.split("\\|", -1);
+        if (parts.length == 5) {
+            dispatch(new FleetEventDto(0, parts[0], toId(parts[1]), toId(parts[2]), toId(parts[3]),
+                    toId(parts[4])));
+        }
+    }
+
+    /**
+     * После переподключения к каналу события других узлов за время разрыва
+     * потеряны. Буфер очищается, чтобы продолжение по Last-Event-ID не скрыло
+     * пропуск, а подключенные подписчики получают событие reset.
+     */
+    @Override
+    public synchronized void onSubscribed() {
+        replayBuffer.clear();
+        long currentEventId = lastEventId;
+        subscribers.removeIf(subscriber -> !subscriber.offer(() -> resetEvent(currentEventId)));
+    }
+
+    /**
+     * Подписывает клиента на поток событий.
+     * Если передан Last-Event-ID, сначала досылает пропущенные события из буфера.
+     * Если нужные события уже вытеснены из буфера, отправляет событие reset:
+     * клиенту нужно заново загрузить состояние.
+     *
+     * @param lastEventId номер последнего полученного события или null
+     * @param driverId фильтр по водителю или null
+     * @param carTypeId фильтр по типу автомобиля или null
+     * @return SSE-поток для ответа
+     */
+    public SseEmitter subscribe(Long lastEventId, Long driverId, Long carTypeId) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        Subscriber subscriber = new Subscriber(emitter, driverId, carTypeId);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> emitter.complete());
+
+        synchronized (this) {
+            List<Supplier<SseEmitter.SseEventBuilder>> backlog = new ArrayList<>();
+            if (lastEventId != null) {
+                FleetEventDto oldest = replayBuffer.peekFirst();
+                long currentEventId = this.lastEventId;
+                boolean unknown = lastEventId > currentEventId;
+                boolean evicted = lastEventId < currentEventId
+                        && (oldest == null || oldest.getId() > lastEventId + 1);
+                if (unknown || evicted) {
+                    backlog.add(() -> resetEvent(currentEventId));
+                } else {
+                    for (FleetEventDto event : replayBuffer) {
+                        if (event.getId() > lastEventId && subscriber.matches(event)) {
+                            backlog.add(() -> toSseEvent(event));
+                        }
+                    }
+                }
+            }
+            subscriber.start(backlog);
+            subscribers.add(subscriber);
+        }
+        return emitter;
+    }
+
+    /**
+     * Возвращает события текущей транзакции. При первом событии регистрирует
+     * отправку их другим узлам перед коммитом и локальную рассылку после коммита.
+     */
+    @SuppressWarnings("unchecked")
+    private List<FleetEventDto> transactionEvents() {
+        List<FleetEventDto> events = (List<FleetEventDto>) TransactionSynchronizationManager.getResource(this);
+        if (events != null) {
+            return events;
+        }
+        List<FleetEventDto> created = new ArrayList<>();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                notifications.send(CHANNEL, created.stream().map(FleetEventBroadcaster::toMessage).toList());
+            }
+
+            @Override
+            public void afterCommit() {
+                created.forEach(FleetEventBroadcaster.this::dispatch);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResource(FleetEventBroadcaster.this);
+            }
+        });
+        return created;
+    }
+
+    /**
+     * Нумерует событие, сохраняет его в буфере и ставит в очереди подписчиков.
+     * Подписчики с переполненной очередью отключаются.
+     *
+     * @param published событие без номера
+     */
+    private synchronized void dispatch(FleetEventDto published) {
+        FleetEventDto event = new FleetEventDto(++lastEventId, published.getType(), published.getCarId(),
+                published.getDriverId(), published.getPreviousDriverId(), published.getCarTypeId());
+        if (replayBuffer.size() == replayCapacity) {
+            replayBuffer.removeFirst();
+        }
+        replayBuffer.addLast(event);
+        subscribers.removeIf(subscriber -> subscriber.matches(event) && !subscriber.offer(() -> toSseEvent(event)));
+    }
+
+    private synchronized void unsubscribe(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    private static String toMessage(FleetEventDto event) {
+        return event.getType() + "|" + toText(event.getCarId()) + "|" + toText(event.getDriverId())
+                + "|" + toText(event.getPreviousDriverId()) + "|" + toText(event.getCarTypeId());
+    }
+
+    private static String toText(Long id) {
+        return id != null ? id.toString() : "";
+    }
+
+    private static Long toId(String text) {
+        return text.isEmpty() ? null : Long.valueOf(text);
+    }
+
+    private static SseEmitter.SseEventBuilder toSseEvent(FleetEventDto event) {
+        return SseEmitter.event()
+                .id(String.valueOf(event.getId()))
+                .name(event.getType())
+                .data(event, MediaType.APPLICATION_JSON);
+    }
+
+    private static SseEmitter.SseEventBuilder resetEvent(long currentEventId) {
+        return SseEmitter.event()
+                .id(String.valueOf(currentEventId))
+                .name("reset")
+                .data("");
+    }
+
+    /**
+     * Подписчик потока событий с фильтрами по водителю и типу автомобиля.
+     * События ставятся в ограниченную очередь и отправляются клиенту
+     * отдельным виртуальным потоком; при простое отправляется heartbeat.
+     * SseEventBuilder изменяется при отправке, поэтому в очереди хранятся
+     * не готовые события, а функции их создания.
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Long driverId;
+        private final Long carTypeId;
+        private final BlockingQueue<Supplier<SseEmitter.SseEventBuilder>> queue;
+
+        private volatile boolean closed;
+        private volatile Thread sender;
+
+        private Subscriber(SseEmitter emitter, Long driverId, Long carTypeId) {
+            this.emitter = emitter;
+            this.driverId = driverId;
+            this.carTypeId = carTypeId;
+            this.queue = new ArrayBlockingQueue<>(subscriberQueueCapacity);
+        }
+
+        private boolean matches(FleetEventDto event) {
+            boolean driverMatches = driverId == null
+                    || Objects.equals(driverId, event.getDriverId())
+                    || Objects.equals(driverId, event.getPreviousDriverId());
+            boolean carTypeMatches = carTypeId == null || Objects.equals(carTypeId, event.getCarTypeId());
+            return driverMatches && carTypeMatches;
+        }
+
+        /**
+         * Запускает поток отправки: сначала пропущенные события, затем очередь.
+         *
+         * @param backlog события для отправки до событий из очереди
+         */
+        private void start(List<Supplier<SseEmitter.SseEventBuilder>> backlog) {
+            sender = Thread.ofVirtual().name("fleet-event-sender").start(() -> run(backlog));
+        }
+
+        /**
+         * Ставит событие в очередь без ожидания. Если очередь заполнена,
+         * подписчик закрывается, а поток отправки завершает ответ.
+         *
+         * @return false, если подписчик закрыт или не успевает получать события
+         */
+        private boolean offer(Supplier<SseEmitter.SseEventBuilder> event) {
+            if (closed || !queue.offer(event)) {
+                closed = true;
+                return false;
+            }
+            return true;
+        }
+
+        private void close() {
+            closed = true;
+            if (sender != null) {
+                sender.interrupt();
+            }
+            unsubscribe(this);
+        }
+
+        private void run(List<Supplier<SseEmitter.SseEventBuilder>> backlog) {
+            for (Supplier<SseEmitter.SseEventBuilder> event : backlog) {
+                if (!send(event.get())) {
+                    return;
+                }
+            }
+            try {
+                while (!closed) {
+                    Supplier<SseEmitter.SseEventBuilder> event =
+                            queue.poll(HEARTBEAT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+                    if (closed || !send(event != null ? event.get() : SseEmitter.event().comment("heartbeat"))) {
+                        break;
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            emitter.complete();
+        }
+
+        private boolean send(SseEmitter.SseEventBuilder builder) {
+            try {
+                emitter.send(builder);
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+-- Собственное пространство ключей для advisory-блокировок cars_mod_seq_floor().
+--
+-- В V9 ключ блокировки (два int4, objsubid = 2) целиком занимало значение
+-- cars_mod_seq, поэтому GET /api/cars/changes принимал за незавершенную
+-- транзакцию любую advisory-блокировку с двумя ключами, в том числе чужую
+-- или из другой базы кластера.
+-- Теперь старшие 16 бит первого ключа (classid в pg_locks) - постоянное
+-- пространство 19795 (0x4D53, "MS"), младшие 16 бит - биты 32..47 отметки,
+-- второй ключ (objid) - ее младшие 32 бита, как и раньше. Отметка
+-- ограничена 2^48, для cars_mod_seq этого достаточно.
+-- CarRepository.findChangeFeedBounds учитывает только блокировки этого
+-- пространства в текущей базе.
+
+CREATE OR REPLACE FUNCTION cars_mod_seq_floor() RETURNS void AS $$
+DECLARE
+    v_floor BIGINT;
+BEGIN
+    IF COALESCE(current_setting('carservice.mod_seq_floor', true), '') <> '' THEN
+        RETURN;
+    END IF;
+    SELECT last_value INTO v_floor FROM cars_mod_seq;
+    PERFORM pg_advisory_xact_lock_shared(((19795::bigint << 16) | ((v_floor >> 32) & 65535))::int,
+                                         ((v_floor & 4294967295) - 2147483648)::int);
+    PERFORM set_config('carservice.mod_seq_floor', v_floor::text, true);
+END;
+$$ LANGUAGE plpgsql;
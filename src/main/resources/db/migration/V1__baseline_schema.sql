@@ -0,0 +1,40 @@
+-- Базовая схема сервиса. Использует IF NOT EXISTS, чтобы применяться как к
+-- пустой базе, так и к базе, ранее созданной через ddl-auto=update.
+
+CREATE TABLE IF NOT EXISTS car_types (
+    id          BIGINT PRIMARY KEY,
+    version     BIGINT DEFAULT 0 NOT NULL,
+    name        VARCHAR(255),
+    description VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS drivers (
+    id      BIGINT PRIMARY KEY,
+    version BIGINT DEFAULT 0 NOT NULL,
+    name    VARCHAR(255),
+    age     INTEGER NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS cars (
+    id          BIGINT PRIMARY KEY,
+    version     BIGINT DEFAULT 0 NOT NULL,
+    brand       VARCHAR(255),
+    model       VARCHAR(255),
+    year        INTEGER NOT NULL,
+    driver_id   BIGINT REFERENCES drivers (id),
+    car_type_id BIGINT REFERENCES car_types (id)
+);
+
+ALTER TABLE car_types ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE drivers ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE cars ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+
+-- Последовательности для пакетной выдачи идентификаторов (allocationSize = 50).
+-- setval сдвигает их за уже существующие идентификаторы из IDENTITY-столбцов.
+CREATE SEQUENCE IF NOT EXISTS car_types_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS drivers_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS cars_seq START WITH 1 INCREMENT BY 50;
+
+SELECT setval('car_types_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM car_types), 1));
+SELECT setval('drivers_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM drivers), 1));
+SELECT setval('cars_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM cars), 1));
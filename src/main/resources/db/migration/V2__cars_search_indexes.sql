@@ -0,0 +1,7 @@
+-- Индексы для GET /api/cars/search и выборок автомобилей по водителю.
+
+CREATE INDEX IF NOT EXISTS idx_cars_brand_model_year ON cars (brand, model, year);
+CREATE INDEX IF NOT EXISTS idx_cars_year ON cars (year);
+CREATE INDEX IF NOT EXISTS idx_cars_car_type_year ON cars (car_type_id, year);
+CREATE INDEX IF NOT EXISTS idx_cars_driver_id ON cars (driver_id);
+CREATE INDEX IF NOT EXISTS idx_cars_unassigned ON cars (id) WHERE driver_id IS NULL;
@@ -0,0 +1,64 @@
+-- Счетчики автопарка для GET /api/stats/fleet.
+-- Поддерживаются триггером на таблице cars при каждой вставке, изменении
+-- и удалении, поэтому чтение статистики не сканирует cars.
+-- Измерения: driver (bucket 0 - автомобили без водителя),
+-- car_type (bucket 0 - без типа), year (bucket - год выпуска).
+
+CREATE TABLE IF NOT EXISTS fleet_counters (
+    dimension VARCHAR(16) NOT NULL,
+    bucket    BIGINT      NOT NULL,
+    car_count BIGINT      NOT NULL,
+    PRIMARY KEY (dimension, bucket)
+);
+
+CREATE OR REPLACE FUNCTION fleet_counters_bump(p_dimension VARCHAR, p_bucket BIGINT, p_delta BIGINT)
+    RETURNS void AS $$
+BEGIN
+    INSERT INTO fleet_counters (dimension, bucket, car_count)
+    VALUES (p_dimension, p_bucket, p_delta)
+    ON CONFLICT (dimension, bucket)
+        DO UPDATE SET car_count = fleet_counters.car_count + EXCLUDED.car_count;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION cars_fleet_counters() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        PERFORM fleet_counters_bump('driver', COALESCE(NEW.driver_id, 0), 1);
+        PERFORM fleet_counters_bump('car_type', COALESCE(NEW.car_type_id, 0), 1);
+        PERFORM fleet_counters_bump('year', NEW.year, 1);
+    ELSIF TG_OP = 'DELETE' THEN
+        PERFORM fleet_counters_bump('driver', COALESCE(OLD.driver_id, 0), -1);
+        PERFORM fleet_counters_bump('car_type', COALESCE(OLD.car_type_id, 0), -1);
+        PERFORM fleet_counters_bump('year', OLD.year, -1);
+    ELSE
+        IF OLD.driver_id IS DISTINCT FROM NEW.driver_id THEN
+            PERFORM fleet_counters_bump('driver', COALESCE(OLD.driver_id, 0), -1);
+            PERFORM fleet_counters_bump('driver', COALESCE(NEW.driver_id, 0), 1);
+        END IF;
+        IF OLD.car_type_id IS DISTINCT FROM NEW.car_type_id THEN
+            PERFORM fleet_counters_bump('car_type', COALESCE(OLD.car_type_id, 0), -1);
+            PERFORM fleet_counters_bump('car_type', COALESCE(NEW.car_type_id, 0), 1);
+        END IF;
+        IF OLD.year IS DISTINCT FROM NEW.year THEN
+            PERFORM fleet_counters_bump('year', OLD.year, -1);
+            PERFORM fleet_counters_bump('year', NEW.year, 1);
+        END IF;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS cars_fleet_counters ON cars;
+CREATE TRIGGER cars_fleet_counters
+    AFTER INSERT OR UPDATE OR DELETE ON cars
+    FOR EACH ROW EXECUTE FUNCTION cars_fleet_counters();
+
+-- Начальное заполнение счетчиков по уже существующим автомобилям.
+DELETE FROM fleet_counters;
+INSERT INTO fleet_counters (dimension, bucket, car_count)
+SELECT 'driver', COALESCE(driver_id, 0), COUNT(*) FROM cars GROUP BY COALESCE(driver_id, 0);
+INSERT INTO fleet_counters (dimension, bucket, car_count)
+SELECT 'car_type', COALESCE(car_type_id, 0), COUNT(*) FROM cars GROUP BY COALESCE(car_type_id, 0);
+INSERT INTO fleet_counters (dimension, bucket, car_count)
+SELECT 'year', year, COUNT(*) FROM cars GROUP BY year;
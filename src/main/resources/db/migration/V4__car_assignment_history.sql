@@ -0,0 +1,14 @@
+-- История назначений водителей на автомобили.
+-- Пишется асинхронно пакетами из AssignmentHistoryRecorder. Внешнего ключа
+-- на cars нет, чтобы история сохранялась после удаления автомобиля.
+
+CREATE TABLE IF NOT EXISTS car_assignment_history (
+    id            BIGSERIAL PRIMARY KEY,
+    car_id        BIGINT      NOT NULL,
+    old_driver_id BIGINT,
+    new_driver_id BIGINT,
+    changed_at    TIMESTAMPTZ NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_car_assignment_history_car
+    ON car_assignment_history (car_id, changed_at DESC);
@@ -0,0 +1,36 @@
+-- Последовательность изменений автомобилей для GET /api/cars/changes.
+-- Каждая вставка и изменение строки cars получает новое значение mod_seq,
+-- каждое удаление оставляет запись в car_tombstones с новым mod_seq.
+-- Значения выдает триггер, поэтому их получают все пути записи,
+-- включая массовые UPDATE и импорт.
+
+CREATE SEQUENCE IF NOT EXISTS cars_mod_seq;
+
+ALTER TABLE cars ADD COLUMN IF NOT EXISTS mod_seq BIGINT;
+UPDATE cars SET mod_seq = nextval('cars_mod_seq') WHERE mod_seq IS NULL;
+ALTER TABLE cars ALTER COLUMN mod_seq SET NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_cars_mod_seq ON cars (mod_seq);
+
+CREATE TABLE IF NOT EXISTS car_tombstones (
+    car_id  BIGINT PRIMARY KEY,
+    mod_seq BIGINT NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_car_tombstones_mod_seq ON car_tombstones (mod_seq);
+
+CREATE OR REPLACE FUNCTION cars_mod_seq() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        INSERT INTO car_tombstones (car_id, mod_seq)
+        VALUES (OLD.id, nextval('cars_mod_seq'))
+        ON CONFLICT (car_id) DO UPDATE SET mod_seq = EXCLUDED.mod_seq;
+        RETURN OLD;
+    END IF;
+    NEW.mod_seq := nextval('cars_mod_seq');
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS cars_mod_seq ON cars;
+CREATE TRIGGER cars_mod_seq
+    BEFORE INSERT OR UPDATE OR DELETE ON cars
+    FOR EACH ROW EXECUTE FUNCTION cars_mod_seq();
@@ -0,0 +1,42 @@
+-- Счетчики автопарка обновляются в постоянном порядке: внутри каждого измерения
+-- сначала строка с меньшим bucket. Иначе две транзакции, переназначающие
+-- автомобили между одними и теми же водителями навстречу друг другу,
+-- блокируют строки fleet_counters в разном порядке и попадают в deadlock.
+
+CREATE OR REPLACE FUNCTION fleet_counters_move(p_dimension VARCHAR, p_from BIGINT, p_to BIGINT)
+    RETURNS void AS $$
+BEGIN
+    IF p_from < p_to THEN
+        PERFORM fleet_counters_bump(p_dimension, p_from, -1);
+        PERFORM fleet_counters_bump(p_dimension, p_to, 1);
+    ELSE
+        PERFORM fleet_counters_bump(p_dimension, p_to, 1);
+        PERFORM fleet_counters_bump(p_dimension, p_from, -1);
+    END IF;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION cars_fleet_counters() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        PERFORM fleet_counters_bump('driver', COALESCE(NEW.driver_id, 0), 1);
+        PERFORM fleet_counters_bump('car_type', COALESCE(NEW.car_type_id, 0), 1);
+        PERFORM fleet_counters_bump('year', NEW.year, 1);
+    ELSIF TG_OP = 'DELETE' THEN
+        PERFORM fleet_counters_bump('driver', COALESCE(OLD.driver_id, 0), -1);
+        PERFORM fleet_counters_bump('car_type', COALESCE(OLD.car_type_id, 0), -1);
+        PERFORM fleet_counters_bump('year', OLD.year, -1);
+    ELSE
+        IF OLD.driver_id IS DISTINCT FROM NEW.driver_id THEN
+            PERFORM fleet_counters_move('driver', COALESCE(OLD.driver_id, 0), COALESCE(NEW.driver_id, 0));
+        END IF;
+        IF OLD.car_type_id IS DISTINCT FROM NEW.car_type_id THEN
+            PERFORM fleet_counters_move('car_type', COALESCE(OLD.car_type_id, 0), COALESCE(NEW.car_type_id, 0));
+        END IF;
+        IF OLD.year IS DISTINCT FROM NEW.year THEN
+            PERFORM fleet_counters_move('year', OLD.year, NEW.year);
+        END IF;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
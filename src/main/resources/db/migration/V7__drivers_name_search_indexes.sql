@@ -0,0 +1,12 @@
+-- Индексы для поиска водителей по имени (GET /api/drivers/search).
+-- Префиксный поиск идет по B-tree с побайтовой сортировкой (ucs_basic):
+-- LIKE 'abc%' превращается в диапазон, а результат читается из индекса
+-- уже упорядоченным. Поиск по подстроке использует триграммный GIN-индекс.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_drivers_name_prefix
+    ON drivers ((lower(name) COLLATE ucs_basic), id);
+
+CREATE INDEX IF NOT EXISTS idx_drivers_name_trgm
+    ON drivers USING gin (lower(name) gin_trgm_ops);
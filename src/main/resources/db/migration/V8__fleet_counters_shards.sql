@@ -0,0 +1,20 @@
+-- Счетчики автопарка разбиты на 16 строк-шардов на каждую пару (dimension, bucket).
+-- Раньше все вставки и переназначения обновляли одни и те же строки
+-- (автомобили без водителя, популярный тип, текущий год) и ждали друг друга
+-- на их блокировке до коммита. Теперь транзакция пишет в шард своего
+-- серверного процесса (pg_backend_pid() % 16), поэтому параллельные
+-- соединения обновляют разные строки, а значение счетчика - сумма шардов.
+
+ALTER TABLE fleet_counters ADD COLUMN IF NOT EXISTS shard SMALLINT NOT NULL DEFAULT 0;
+ALTER TABLE fleet_counters DROP CONSTRAINT IF EXISTS fleet_counters_pkey;
+ALTER TABLE fleet_counters ADD CONSTRAINT fleet_counters_pkey PRIMARY KEY (dimension, bucket, shard);
+
+CREATE OR REPLACE FUNCTION fleet_counters_bump(p_dimension VARCHAR, p_bucket BIGINT, p_delta BIGINT)
+    RETURNS void AS $$
+BEGIN
+    INSERT INTO fleet_counters (dimension, bucket, shard, car_count)
+    VALUES (p_dimension, p_bucket, pg_backend_pid() % 16, p_delta)
+    ON CONFLICT (dimension, bucket, shard)
+        DO UPDATE SET car_count = fleet_counters.car_count + EXCLUDED.car_count;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,49 @@
+-- Безопасная отметка для GET /api/cars/changes и срок хранения car_tombstones.
+--
+-- mod_seq выдается при записи строки, а не при коммите: долгая транзакция
+-- может получить меньший номер и закоммититься позже транзакции с большим.
+-- Если клиент уже получил отметку выше этого номера, изменение он пропустит.
+-- Поэтому каждая транзакция, изменяющая cars, при первой записи берет
+-- разделяемую advisory-блокировку (два int4, objsubid = 2) с ключом,
+-- равным значению cars_mod_seq до ее первого номера. Ключ виден в pg_locks
+-- до коммита, и GET /api/cars/changes не отдает изменения с номером выше
+-- минимального такого ключа (см. CarRepository.findInFlightModSeqFloor).
+
+CREATE OR REPLACE FUNCTION cars_mod_seq_floor() RETURNS void AS $$
+DECLARE
+    v_floor BIGINT;
+BEGIN
+    IF COALESCE(current_setting('carservice.mod_seq_floor', true), '') <> '' THEN
+        RETURN;
+    END IF;
+    SELECT last_value INTO v_floor FROM cars_mod_seq;
+    PERFORM pg_advisory_xact_lock_shared((v_floor >> 32)::int, ((v_floor & 4294967295) - 2147483648)::int);
+    PERFORM set_config('carservice.mod_seq_floor', v_floor::text, true);
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION cars_mod_seq() RETURNS trigger AS $$
+BEGIN
+    PERFORM cars_mod_seq_floor();
+    IF TG_OP = 'DELETE' THEN
+        INSERT INTO car_tombstones (car_id, mod_seq, deleted_at)
+        VALUES (OLD.id, nextval('cars_mod_seq'), now())
+        ON CONFLICT (car_id) DO UPDATE SET mod_seq = EXCLUDED.mod_seq, deleted_at = EXCLUDED.deleted_at;
+        RETURN OLD;
+    END IF;
+    NEW.mod_seq := nextval('cars_mod_seq');
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Отметки об удалении хранятся ограниченное время (CarTombstonePurger).
+-- car_tombstones_purge хранит наибольший удаленный mod_seq: клиент с более
+-- старой отметкой мог пропустить удаления и должен загрузить автопарк заново.
+ALTER TABLE car_tombstones ADD COLUMN IF NOT EXISTS deleted_at TIMESTAMPTZ NOT NULL DEFAULT now();
+CREATE INDEX IF NOT EXISTS idx_car_tombstones_deleted_at ON car_tombstones (deleted_at);
+
+CREATE TABLE IF NOT EXISTS car_tombstones_purge (
+    id          BOOLEAN PRIMARY KEY DEFAULT TRUE CHECK (id),
+    max_mod_seq BIGINT NOT NULL
+);
+INSERT INTO car_tombstones_purge (id, max_mod_seq) VALUES (TRUE, 0) ON CONFLICT (id) DO NOTHING;
@@ -0,0 +1,169 @@
+package org.example.carservice.config;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет маршрутизацию ReadReplicaConfig: транзакции readOnly получают
+ * соединение с реплики, остальные запросы - с основной базы.
+ *
+ * Основная база - PostgreSQL из application.properties, реплика - отдельный
+ * экземпляр PostgreSQL в Testcontainers (нужен Docker) с той же схемой.
+ * Сервер, выдавший соединение, определяется по system_identifier из
+ * pg_control_system(): он уникален для каждого кластера и сравнивается
+ * со значениями, прочитанными напрямую с обоих серверов.
+ */
+@Testcontainers
+@SpringBootTest
+class ReadReplicaRoutingTest {
+
+    private static final String SYSTEM_IDENTIFIER = "SELECT system_identifier FROM pg_control_system()";
+
+    @Container
+    private static final PostgreSQLContainer<?> REPLICA = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static long replicaIdentifier;
+
+    @DynamicPropertySource
+    static void replicaProperties(DynamicPropertyRegistry registry) {
+        registry.add("carservice.datasource.replica.url", REPLICA::getJdbcUrl);
+        registry.add("carservice.datasource.replica.username", REPLICA::getUsername);
+        registry.add("carservice.datasource.replica.password", REPLICA::getPassword);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.datasource.url}")
+    private String primaryUrl;
+
+    @Value("${spring.datasource.username}")
+    private String primaryUsername;
+
+    @Value("${spring.datasource.password}")
+    private String primaryPassword;
+
+    /**
+     * Создает на реплике ту же схему миграциями Flyway, чтобы фоновые чтения
+     * приложения (например, загрузка AssignmentIndex) находили таблицы.
+     */
+    @BeforeAll
+    static void prepareReplica() throws SQLException {
+        Flyway.configure()
+                .dataSource(REPLICA.getJdbcUrl(), REPLICA.getUsername(), REPLICA.getPassword())
+                .load()
+                .migrate();
+        replicaIdentifier = systemIdentifier(REPLICA.getJdbcUrl(), REPLICA.getUsername(), REPLICA.getPassword());
+    }
+
+    @Test
+    void serversAreDistinct() throws SQLException {
+        assertThat(primaryIdentifier()).isNotEqualTo(replicaIdentifier);
+    }
+
+    @Test
+    void readOnlyTransactionUsesReplica() {
+        assertThat(inTransaction(true)).isEqualTo(replicaIdentifier);
+    }
+
+    @Test
+    void readWriteTransactionUsesPrimary() throws SQLException {
+        assertThat(inTransaction(false)).isEqualTo(primaryIdentifier());
+    }
+
+    @Test
+    void queryOutsideTransactionUsesPrimary() throws SQLException {
+        assertThat(jdbcTemplate.queryForObject(SYSTEM_IDENTIFIER, Long.class)).isEqualTo(primaryIdentifier());
+    }
+
+    /**
+     * Как при open-in-view: одна сессия Hibernate на весь запрос, сначала
+     * чтение, затем запись. Соединение реплики не должно остаться у сессии
+     * после первой транзакции.
+     */
+    @Test
+    void writeAfterReadInSameSessionUsesPrimary() throws SQLException {
+        long primaryIdentifier = primaryIdentifier();
+        EntityManager sessionEntityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory,
+                new EntityManagerHolder(sessionEntityManager));
+        try {
+            assertThat(nativeInTransaction(true)).isEqualTo(replicaIdentifier);
+            assertThat(nativeInTransaction(false)).isEqualTo(primaryIdentifier);
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            sessionEntityManager.close();
+        }
+    }
+
+    /**
+     * Читает system_identifier сервера соединения через JdbcTemplate в транзакции.
+     */
+    private Long inTransaction(boolean readOnly) {
+        return transaction(readOnly).execute(status -> jdbcTemplate.queryForObject(SYSTEM_IDENTIFIER, Long.class));
+    }
+
+    /**
+     * Читает system_identifier сервера соединения сессии Hibernate в транзакции.
+     */
+    private Long nativeInTransaction(boolean readOnly) {
+        return transaction(readOnly).execute(status ->
+                ((Number) entityManager.createNativeQuery(SYSTEM_IDENTIFIER).getSingleResult()).longValue());
+    }
+
+    private TransactionTemplate transaction(boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction;
+    }
+
+    private long primaryIdentifier() throws SQLException {
+        return systemIdentifier(primaryUrl, primaryUsername, primaryPassword);
+    }
+
+    /**
+     * Читает system_identifier сервера напрямую, минуя DataSource приложения.
+     */
+    private static long systemIdentifier(String url, String username, String password) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, username, password);
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(SYSTEM_IDENTIFIER)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
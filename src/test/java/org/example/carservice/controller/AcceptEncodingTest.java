@@ -0,0 +1,33 @@
+package org.example.carservice.controller;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Разбор заголовка Accept-Encoding для GET /api/car-types.
+ */
+class AcceptEncodingTest {
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', nullValues = "null", value = {
+            "null|false",
+            "gzip|true",
+            "GZIP|true",
+            "gzip, deflate, br|true",
+            "br;q=1.0, gzip;q=0.8|true",
+            "gzip;q=0|false",
+            "gzip; q=0.0|false",
+            "gzip;q=0.001|true",
+            "x-gzip|false",
+            "deflate|false",
+            "*|true",
+            "*;q=0|false",
+            "gzip;q=0, *|false",
+            "identity, *;q=0.5|true"
+    })
+    void acceptsGzipHonoursQvalues(String acceptEncoding, boolean expected) {
+        assertThat(MainController.acceptsGzip(acceptEncoding)).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,149 @@
+package org.example.carservice.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.carservice.dto.CarDto;
+import org.example.carservice.entity.CarType;
+import org.example.carservice.entity.Driver;
+import org.example.carservice.repository.CarRepository;
+import org.example.carservice.repository.CarTypeRepository;
+import org.example.carservice.repository.DriverRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Создание и изменение автомобилей, у которых водитель и тип переданы
+ * в JSON только идентификатором.
+ *
+ * Нужна запущенная PostgreSQL из application.properties. Тест создает
+ * свои записи и удаляет их по окончании.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class CarAssociationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CarRepository carRepo;
+
+    @Autowired
+    private DriverRepository driverRepo;
+
+    @Autowired
+    private CarTypeRepository carTypeRepo;
+
+    private final List<Long> carIds = new ArrayList<>();
+    private Driver driver;
+    private CarType sedan;
+    private CarType suv;
+
+    @BeforeEach
+    void setUp() {
+        driver = driverRepo.save(new Driver("Association driver", 30));
+        sedan = carTypeRepo.save(new CarType("Association sedan", "test"));
+        suv = carTypeRepo.save(new CarType("Association SUV", "test"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        carRepo.deleteAllById(carIds);
+        driverRepo.deleteById(driver.getId());
+        carTypeRepo.deleteAllById(List.of(sedan.getId(), suv.getId()));
+    }
+
+    @Test
+    void createAndUpdateCarWithIdOnlyCarType() throws Exception {
+        Long carId = createCar("/api/cars",
+                "{\"brand\":\"Lada\",\"model\":\"Vesta\",\"year\":2020,"
+                + "\"carType\":{\"id\":" + sedan.getId() + "}}");
+        assertThat(carDto(carId).getCarTypeId()).isEqualTo(sedan.getId());
+
+        mockMvc.perform(put("/api/cars/" + carId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"brand\":\"Lada\",\"model\":\"Niva\",\"year\":2021,"
+                                + "\"carType\":{\"id\":" + suv.getId() + "}}"))
+                .andExpect(status().isOk());
+
+        CarDto updated = carDto(carId);
+        assertThat(updated.getModel()).isEqualTo("Niva");
+        assertThat(updated.getCarTypeId()).isEqualTo(suv.getId());
+    }
+
+    @Test
+    void createCarWithIdOnlyDriver() throws Exception {
+        Long carId = createCar("/api/cars",
+                "{\"brand\":\"Lada\",\"model\":\"Granta\",\"year\":2019,"
+                + "\"driver\":{\"id\":" + driver.getId() + "},"
+                + "\"carType\":{\"id\":" + sedan.getId() + "}}");
+
+        CarDto car = carDto(carId);
+        assertThat(car.getDriverId()).isEqualTo(driver.getId());
+        assertThat(car.getCarTypeId()).isEqualTo(sedan.getId());
+    }
+
+    @Test
+    void createCarsBatchWithIdOnlyAssociations() throws Exception {
+        String body = "[{\"brand\":\"Lada\",\"model\":\"Largus\",\"year\":2018,"
+                + "\"carType\":{\"id\":" + suv.getId() + "}},"
+                + "{\"brand\":\"Lada\",\"model\":\"XRAY\",\"year\":2019,"
+                + "\"driver\":{\"id\":" + driver.getId() + "}}]";
+
+        String response = mockMvc.perform(post("/api/cars/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode cars = objectMapper.readTree(response);
+        assertThat(cars).hasSize(2);
+        cars.forEach(car -> carIds.add(car.get("id").asLong()));
+        assertThat(carDto(carIds.get(0)).getCarTypeId()).isEqualTo(suv.getId());
+        assertThat(carDto(carIds.get(1)).getDriverId()).isEqualTo(driver.getId());
+    }
+
+    @Test
+    void createCarWithoutCarTypeIdIsRejected() throws Exception {
+        long before = carRepo.count();
+
+        mockMvc.perform(post("/api/cars")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"brand\":\"Lada\",\"model\":\"Kalina\",\"year\":2015,\"carType\":{}}"))
+                .andExpect(status().isBadRequest());
+
+        assertThat(carRepo.count()).isEqualTo(before);
+    }
+
+    private Long createCar(String url, String body) throws Exception {
+        String response = mockMvc.perform(post(url)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Long carId = objectMapper.readTree(response).get("id").asLong();
+        carIds.add(carId);
+        return carId;
+    }
+
+    private CarDto carDto(Long carId) {
+        return carRepo.findCarDtoById(carId).orElseThrow();
+    }
+}
@@ -0,0 +1,118 @@
+package org.example.carservice.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.carservice.entity.Car;
+import org.example.carservice.entity.CarType;
+import org.example.carservice.entity.Driver;
+import org.example.carservice.repository.CarRepository;
+import org.example.carservice.repository.CarTypeRepository;
+import org.example.carservice.repository.DriverRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Проверяет, что списки автомобилей загружаются одним SQL-запросом
+ * независимо от количества строк (нет N+1 по водителям и типам).
+ *
+ * Нужна запущенная PostgreSQL из application.properties. Тест создает
+ * свои записи и удаляет их по окончании.
+ */
+@SpringBootTest(properties = "carservice.hibernate.statistics.enabled=true")
+@AutoConfigureMockMvc
+class CarListQueryCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CarRepository carRepo;
+
+    @Autowired
+    private DriverRepository driverRepo;
+
+    @Autowired
+    private CarTypeRepository carTypeRepo;
+
+    private final List<Long> carIds = new ArrayList<>();
+    private final List<Long> driverIds = new ArrayList<>();
+    private final List<Long> carTypeIds = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        carRepo.deleteAllById(carIds);
+        driverRepo.deleteAllById(driverIds);
+        carTypeRepo.deleteAllById(carTypeIds);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 100})
+    void getAllCarsUsesSingleStatement(int rows) throws Exception {
+        seed(rows);
+
+        assertThat(statementsFor("/api/cars")).isEqualTo(1);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 100})
+    void getCarsPageUsesSingleStatement(int rows) throws Exception {
+        seed(rows);
+
+        assertThat(statementsFor("/api/cars?limit=" + rows)).isEqualTo(1);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 100})
+    void getDriverCarsUsesSingleStatement(int rows) throws Exception {
+        Long driverId = seed(rows);
+
+        assertThat(statementsFor("/api/drivers/" + driverId + "/cars")).isEqualTo(1);
+    }
+
+    /**
+     * Создает водителя, тип и rows автомобилей с этим водителем и типом.
+     *
+     * @return идентификатор водителя
+     */
+    private Long seed(int rows) {
+        Driver driver = driverRepo.save(new Driver("Query count driver", 30));
+        driverIds.add(driver.getId());
+        CarType carType = carTypeRepo.save(new CarType("Query count type", "test"));
+        carTypeIds.add(carType.getId());
+
+        List<Car> cars = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            Car car = new Car("Query", "Count " + i, 2020, carType);
+            car.setDriver(driver);
+            cars.add(car);
+        }
+        carRepo.saveAll(cars).forEach(car -> carIds.add(car.getId()));
+        return driver.getId();
+    }
+
+    /**
+     * Выполняет GET-запрос и возвращает количество подготовленных SQL-запросов.
+     */
+    private long statementsFor(String url) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+}
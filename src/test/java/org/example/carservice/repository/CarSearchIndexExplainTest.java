@@ -0,0 +1,200 @@
+package org.example.carservice.repository;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.ChainListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import org.example.carservice.entity.Car;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет по EXPLAIN, что условия GET /api/cars/search используют
+ * индексы из V2__cars_search_indexes.sql, а не полный просмотр cars.
+ *
+ * Объясняется не написанный вручную SQL, а запрос, который Hibernate строит
+ * для CarSearchRepositoryImpl и CarSpecifications: он перехватывается
+ * слушателем JDBC-прокси над DataSource (SqlMetricsDataSourcePostProcessor)
+ * и выполняется через EXPLAIN с теми же параметрами.
+ *
+ * Тестовые данные (20 000 автомобилей с избирательными значениями фильтров)
+ * создаются и анализируются внутри транзакции, которая затем откатывается.
+ * Нужна запущенная PostgreSQL из application.properties.
+ */
+@SpringBootTest
+class CarSearchIndexExplainTest {
+
+    private static final int CARS = 20000;
+
+    /**
+     * Размер страницы, который GET /api/cars/search передает в репозиторий.
+     */
+    private static final int LIMIT = 101;
+
+    @Autowired
+    private CarRepository carRepo;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void brandAndModelUseCompositeIndex() {
+        assertThat(explain(data -> CarSpecifications.hasBrand("Explain brand 7")
+                .and(CarSpecifications.hasModel("Explain model 7"))))
+                .contains("idx_cars_brand_model_year");
+    }
+
+    @Test
+    void yearRangeUsesYearIndex() {
+        assertThat(explain(data -> CarSpecifications.yearFrom(1907).and(CarSpecifications.yearTo(1907))))
+                .contains("idx_cars_year");
+    }
+
+    @Test
+    void carTypeAndYearUseCarTypeIndex() {
+        assertThat(explain(data -> CarSpecifications.hasCarType(data.carTypeId)
+                .and(CarSpecifications.yearFrom(1900))))
+                .contains("idx_cars_car_type_year");
+    }
+
+    @Test
+    void driverUsesDriverIndex() {
+        assertThat(explain(data -> CarSpecifications.hasDriver(data.rareDriverId)))
+                .contains("idx_cars_driver_id");
+    }
+
+    @Test
+    void unassignedUsesPartialIndex() {
+        assertThat(explain(data -> CarSpecifications.isUnassigned()))
+                .contains("idx_cars_unassigned");
+    }
+
+    /**
+     * Заполняет cars тестовыми данными, выполняет поиск с заданным условием,
+     * перехватывает SQL, отправленный Hibernate, выполняет для него EXPLAIN
+     * и откатывает транзакцию.
+     *
+     * @param spec условие поиска по созданным данным
+     * @return текст плана запроса
+     */
+    private String explain(Function<SeedData, Specification<Car>> spec) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        return transaction.execute(status -> {
+            status.setRollbackOnly();
+            SeedData data = seed();
+            QueryInfo search = captureQuery(() -> carRepo.searchCarDtos(spec.apply(data), 0L, LIMIT));
+            return String.join("\n", jdbcTemplate.queryForList(
+                    "EXPLAIN " + search.getQuery(), String.class, parameters(search)));
+        });
+    }
+
+    /**
+     * Выполняет действие с дополнительным слушателем JDBC-прокси и возвращает
+     * единственный выполненный при этом запрос.
+     *
+     * @param action действие, выполняющее один SQL-запрос
+     * @return перехваченный запрос с параметрами
+     */
+    private QueryInfo captureQuery(Runnable action) {
+        List<QueryInfo> captured = new ArrayList<>();
+        QueryExecutionListener listener = new QueryExecutionListener() {
+            @Override
+            public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            }
+
+            @Override
+            public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+                captured.addAll(queryInfoList);
+            }
+        };
+        ChainListener chain = ((ProxyDataSource) dataSource).getProxyConfig().getQueryListener();
+        chain.addListener(listener);
+        try {
+            action.run();
+        } finally {
+            chain.getListeners().remove(listener);
+        }
+        assertThat(captured).hasSize(1);
+        return captured.get(0);
+    }
+
+    /**
+     * Возвращает значения параметров запроса в порядке их номеров.
+     */
+    private static Object[] parameters(QueryInfo query) {
+        return query.getParametersList().get(0).stream()
+                .sorted(Comparator.comparingInt(operation -> (Integer) operation.getArgs()[0]))
+                .map(operation -> operation.getArgs()[1])
+                .toArray();
+    }
+
+    /**
+     * Заполняет cars тестовыми данными, выполняет EXPLAIN поискового запроса
+     * с заданным условием и откатывает транзакцию.
+     *
+     * @param condition условие WHERE по созданным данным
+     * @return текст плана запроса
+     */
+    private String explain(Function<SeedData, String> condition) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        return transaction.execute(status -> {
+            status.setRollbackOnly();
+            SeedData data = seed();
+            return String.join("\n", jdbcTemplate.queryForList(
+                    "EXPLAIN " + String.format(SEARCH, condition.apply(data)), String.class));
+        });
+    }
+
+    /**
+     * Создает тип, двух водителей и CARS автомобилей: почти все автомобили
+     * принадлежат первому водителю, каждый 500-й - второму, каждый 1000-й
+     * без водителя, каждый 200-й имеет тип. Затем обновляет статистику.
+     */
+    private SeedData seed() {
+        SeedData data = new SeedData();
+        data.carTypeId = jdbcTemplate.queryForObject(
+                "INSERT INTO car_types (id, version, name) VALUES (nextval('car_types_seq'), 0, 'Explain type') "
+                + "RETURNING id", Long.class);
+        Long bulkDriverId = jdbcTemplate.queryForObject(
+                "INSERT INTO drivers (id, version, name, age) VALUES (nextval('drivers_seq'), 0, 'Explain bulk', 30) "
+                + "RETURNING id", Long.class);
+        data.rareDriverId = jdbcTemplate.queryForObject(
+                "INSERT INTO drivers (id, version, name, age) VALUES (nextval('drivers_seq'), 0, 'Explain rare', 30) "
+                + "RETURNING id", Long.class);
+
+        jdbcTemplate.update("INSERT INTO cars (id, version, brand, model, year, driver_id, car_type_id) "
+                + "SELECT nextval('cars_seq'), 0, 'Explain brand ' || (i % 500), 'Explain model ' || (i % 500), "
+                + "1900 + (i % 1000), "
+                + "CASE WHEN i % 1000 = 0 THEN NULL WHEN i % 500 = 0 THEN ? ELSE ? END, "
+                + "CASE WHEN i % 200 = 0 THEN ? END "
+                + "FROM generate_series(1, ?) i",
+                data.rareDriverId, bulkDriverId, data.carTypeId, CARS);
+        jdbcTemplate.execute("ANALYZE cars");
+        return data;
+    }
+
+    private static final class SeedData {
+        private Long carTypeId;
+        private Long rareDriverId;
+    }
+}